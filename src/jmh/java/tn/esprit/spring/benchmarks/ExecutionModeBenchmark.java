@@ -0,0 +1,94 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.esprit.spring.GestionStationSkiApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the execution modes over HTTP: 64 clients against at most 32 Tomcat threads, half of
+ * them paging skiers from the database, half listing pistes from the second-level cache.
+ * {@code mode=virtual} needs a Java 21+ JVM and has no recorded results yet: run
+ * {@code -Djmh.args="ExecutionMode -p mode=platform"} on 17.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(64)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                .run("--spring.datasource.url=" + SeededStation.migrateAndSeed(ROWS),
+                        "--server.port=0",
+                        "--server.servlet.context-path=/api",
+                        "--server.tomcat.threads.max=32",
+                        "--ski.execution.virtual-threads=" + "virtual".equals(mode),
+                        "--ski.scheduling.enabled=false",
+                        /* All 64 clients share one address: the per-client buckets would answer most requests with 429 */
+                        "--ski.rate-limit.enabled=false",
+                        "--logging.level.root=warn");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int pageSkiers() throws IOException, InterruptedException {
+        long after = ThreadLocalRandom.current().nextLong(ROWS);
+        return get("/skier/all?limit=100&after=" + after);
+    }
+
+    @Benchmark
+    public int listPistes() throws IOException, InterruptedException {
+        return get("/piste/all");
+    }
+
+    /* A shed or failed request is not throughput: it ends the run instead of being counted */
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status / 100 != 2) {
+            throw new IllegalStateException("GET " + path + " answered " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,80 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.CourseCapacityLedger;
+import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.InstructorScheduleIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class RegistrationBenchmark {
+
+    /* Courses 3, 6 ... 30 are the individual ones */
+    private static final int INDIVIDUAL_COURSES = SeededStation.COURSES / 3;
+
+    private IRegistrationServices registrationServices;
+    private CourseCapacityLedger capacityLedger;
+    private InstructorScheduleIndex scheduleIndex;
+    private JdbcTemplate jdbcTemplate;
+    private int rows;
+    private long next;
+
+    @Setup
+    public void setUp(SeededStation station) {
+        registrationServices = station.bean(IRegistrationServices.class);
+        capacityLedger = station.bean(CourseCapacityLedger.class);
+        scheduleIndex = station.bean(InstructorScheduleIndex.class);
+        jdbcTemplate = station.bean(JdbcTemplate.class);
+        rows = station.rows;
+    }
+
+    /* Every iteration starts from the seeded data: the registrations written by the previous one
+       (ids above the seeded rows) are deleted and their seats handed back to the ledger */
+    @Setup(Level.Iteration)
+    public void resetRegistrations() {
+        List<Map<String, Object>> written = jdbcTemplate.queryForList("select course_num_course, num_week from registration "
+                + "where num_registration > ? and mod(course_num_course, 3) = 0", rows);
+        jdbcTemplate.update("delete from registration where num_registration > ? and mod(course_num_course, 3) = 0", rows);
+        for (Map<String, Object> registration : written) {
+            capacityLedger.release(((Number) registration.get("course_num_course")).longValue(),
+                    ((Number) registration.get("num_week")).intValue());
+        }
+        for (long numCourse = SeededStation.INDIVIDUAL_COURSE; numCourse <= SeededStation.COURSES; numCourse += 3) {
+            scheduleIndex.unregistered(numCourse);
+        }
+        next = 0;
+    }
+
+    /* Walks every skier through the weeks of the individual courses: rows x 52 x 10 distinct
+       registrations, far more than one iteration makes, so each call is a new registration */
+    @Benchmark
+    public Registration addRegistrationAndAssignToSkierAndCourse() {
+        long call = next++;
+        long numSkier = call % rows + 1;
+        int numWeek = (int) (call / rows % CourseCapacityLedger.LAST_WEEK) + CourseCapacityLedger.FIRST_WEEK;
+        long numCourse = SeededStation.INDIVIDUAL_COURSE
+                * (call / ((long) rows * CourseCapacityLedger.LAST_WEEK) % INDIVIDUAL_COURSES + 1);
+        return registrationServices.addRegistrationAndAssignToSkierAndCourse(
+                new Registration(null, numWeek, null, null), numSkier, numCourse);
+    }
+}
@@ -0,0 +1,103 @@
+package tn.esprit.spring.benchmarks;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The application started on an in-memory H2 database (MySQL mode) migrated by Flyway and seeded
+ * with {@code rows} skiers, subscriptions and registrations before the context boots, so the
+ * capacity ledger and the revenue aggregator warm up from the seeded data. Spring Boot shuts the
+ * in-memory database down when the context closes.
+ */
+@State(Scope.Benchmark)
+public class SeededStation {
+
+    /* Courses cycle through the course types: ids 3, 6, 9 ... are INDIVIDUAL */
+    public static final int COURSES = 30;
+    public static final long INDIVIDUAL_COURSE = 3L;
+
+    private static final int CHUNK = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + migrateAndSeed(rows),
+                        "--ski.scheduling.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /** Creates, migrates and seeds a new in-memory database, and returns its JDBC url. */
+    static String migrateAndSeed(int rows) {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        seed(new JdbcTemplate(dataSource), rows);
+        return url;
+    }
+
+    private static void seed(JdbcTemplate jdbc, int rows) {
+        TypeCourse[] types = TypeCourse.values();
+        List<Object[]> courses = new ArrayList<>(COURSES);
+        for (int c = 0; c < COURSES; c++) {
+            courses.add(new Object[]{c % 5 + 1, 60f + c, Support.values()[c % 2].name(), c % 3 + 1,
+                    types[c % types.length].name()});
+        }
+        jdbc.batchUpdate("insert into course (level, price, support, time_slot, type_course) values (?, ?, ?, ?, ?)", courses);
+
+        LocalDate start = LocalDate.now().minusMonths(3);
+        TypeSubscription[] subscriptionTypes = TypeSubscription.values();
+        for (int from = 1; from <= rows; from += CHUNK) {
+            int to = Math.min(rows, from + CHUNK - 1);
+            List<Object[]> subscriptions = new ArrayList<>(CHUNK);
+            List<Object[]> skiers = new ArrayList<>(CHUNK);
+            List<Object[]> registrations = new ArrayList<>(CHUNK);
+            for (int i = from; i <= to; i++) {
+                subscriptions.add(new Object[]{Date.valueOf(start), Date.valueOf(start.plusMonths(i % 13)),
+                        100f + i % 400, subscriptionTypes[i % subscriptionTypes.length].ordinal()});
+                skiers.add(new Object[]{"Tunis", Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(i % 15_000)),
+                        "First" + i, "Last" + i, i});
+                registrations.add(new Object[]{i, (i - 1) / COURSES % 52 + 1, (i - 1) % COURSES + 1, i});
+            }
+            jdbc.batchUpdate("insert into subscription (start_date, end_date, price, type_sub) values (?, ?, ?, ?)", subscriptions);
+            jdbc.batchUpdate("insert into skier (city, date_of_birth, first_name, last_name, subscription_num_sub) values (?, ?, ?, ?, ?)", skiers);
+            jdbc.batchUpdate("insert into registration (num_registration, num_week, course_num_course, skier_num_skier) values (?, ?, ?, ?)", registrations);
+        }
+        jdbc.update("update id_generator set next_val = ? where sequence_name in ('registration', 'skier', 'subscription')", rows + 50L);
+    }
+}
@@ -0,0 +1,43 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SkierBenchmark {
+
+    private static final LocalDate BIRTH = LocalDate.of(1990, 1, 1);
+
+    private ISkierServices skierServices;
+
+    @Setup
+    public void setUp(SeededStation station) {
+        skierServices = station.bean(ISkierServices.class);
+    }
+
+    @Benchmark
+    public Skier addSkier() {
+        Subscription subscription = new Subscription(null, LocalDate.now(), null, 500f, TypeSubscription.ANNUAL, 0);
+        return skierServices.addSkier(new Skier(null, "Bench", "Skier", BIRTH, "Tunis", subscription, null, null, 0));
+    }
+}
@@ -0,0 +1,73 @@
+package tn.esprit.spring.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.controllers.SkierRestController;
+import tn.esprit.spring.dto.SkierView;
+import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.KeysetPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON cost of the skier listings: one {@code /skier/all} page already in memory, and the whole
+ * {@code /skier/stream} NDJSON export (query included) written to a sink that only counts bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SkierJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private SkierRestController skierRestController;
+    private List<SkierView> page;
+
+    @Setup
+    public void setUp(SeededStation station) {
+        objectMapper = station.bean(ObjectMapper.class);
+        skierRestController = station.bean(SkierRestController.class);
+        page = station.bean(ISkierServices.class).retrieveAllSkiers(null, KeysetPage.MAX_LIMIT);
+    }
+
+    @Benchmark
+    public byte[] serializeSkierPage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public long streamAllSkiersAsNdjson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        skierRestController.streamAllSkiers().getBody().writeTo(out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.services.SubscriptionServicesImpl;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SubscriptionBenchmark {
+
+    private SubscriptionServicesImpl subscriptionServices;
+
+    @Setup
+    public void setUp(SeededStation station) {
+        subscriptionServices = station.bean(SubscriptionServicesImpl.class);
+    }
+
+    @Benchmark
+    public void showMonthlyRecurringRevenue() {
+        subscriptionServices.showMonthlyRecurringRevenue();
+    }
+
+    @Benchmark
+    public Float retrieveMonthlyRecurringRevenue() {
+        return subscriptionServices.retrieveMonthlyRecurringRevenue();
+    }
+}
@@ -0,0 +1,21 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tn.esprit.spring.services.TableVersions;
+
+@Configuration
+@RequiredArgsConstructor
+public class ConditionalGetConfig implements WebMvcConfigurer {
+
+    private final TableVersions tableVersions;
+    private final Environment environment;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConditionalGetInterceptor(tableVersions, environment));
+    }
+}
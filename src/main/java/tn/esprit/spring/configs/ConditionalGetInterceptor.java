@@ -0,0 +1,41 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import tn.esprit.spring.controllers.VersionedResponse;
+import tn.esprit.spring.services.TableVersions;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers the {@link VersionedResponse} endpoints: sets their ETag and Cache-Control headers, and
+ * stops with a 304 when the client already has the current representation.
+ */
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final TableVersions tableVersions;
+    private final Environment environment;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || !HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        VersionedResponse versioned = ((HandlerMethod) handler).getMethodAnnotation(VersionedResponse.class);
+        if (versioned == null) {
+            return true;
+        }
+        String cacheControl = environment.resolvePlaceholders(versioned.cacheControl());
+        if (!cacheControl.isEmpty()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return !new ServletWebRequest(request, response).checkNotModified(tableVersions.etag(versioned.value()));
+    }
+}
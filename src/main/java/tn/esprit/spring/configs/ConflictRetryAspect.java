@@ -0,0 +1,73 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries the {@link tn.esprit.spring.services.RetryOnConflict} service methods on an optimistic
+ * locking failure, with exponential backoff and full jitter. It runs outside the transaction of the
+ * method, so each attempt starts a new transaction and reads the rows again.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+
+    public static final String RETRIES = "ski.service.retries";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    public ConflictRetryAspect(MeterRegistry meterRegistry,
+                               @Value("${ski.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${ski.retry.backoff:20ms}") Duration backoff,
+                               @Value("${ski.retry.max-backoff:200ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    @Around("@annotation(tn.esprit.spring.services.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException conflict) {
+                String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+                boolean exhausted = attempt >= maxAttempts;
+                meterRegistry.counter(RETRIES, "method", method, "outcome", exhausted ? "exhausted" : "retried").increment();
+                if (exhausted) {
+                    log.warn("{} still conflicting after {} attempts", method, attempt);
+                    throw conflict;
+                }
+                log.debug("{} conflicted on attempt {}, retrying", method, attempt);
+                backOff(attempt, conflict);
+            }
+        }
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException conflict) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
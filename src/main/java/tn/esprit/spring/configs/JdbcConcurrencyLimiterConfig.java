@@ -0,0 +1,55 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a {@link LimitedDataSource} in front of the connection pool when
+ * {@code ski.jdbc.max-concurrency} is set: requests that would wait on a saturated pool fail after
+ * {@code ski.jdbc.acquire-timeout} and free their thread, so endpoints served from the caches keep
+ * answering while the database is slow.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ski.jdbc.max-concurrency")
+public class JdbcConcurrencyLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(Environment environment) {
+        int maxConcurrency = environment.getRequiredProperty("ski.jdbc.max-concurrency", Integer.class);
+        Duration timeout = environment.getProperty("ski.jdbc.acquire-timeout", Duration.class, Duration.ofSeconds(2));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof LimitedDataSource)) {
+                    return new LimitedDataSource((DataSource) bean, maxConcurrency, timeout.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder jdbcConcurrencyMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof LimitedDataSource)) {
+                return;
+            }
+            LimitedDataSource limited = (LimitedDataSource) dataSource;
+            Gauge.builder("ski.jdbc.permits.in.use", limited, LimitedDataSource::inUse)
+                    .description("Connections handed out under the JDBC concurrency limit")
+                    .register(registry);
+            FunctionCounter.builder("ski.jdbc.permits.rejected", limited, LimitedDataSource::rejections)
+                    .description("Connection requests refused after the acquire timeout")
+                    .register(registry);
+        };
+    }
+}
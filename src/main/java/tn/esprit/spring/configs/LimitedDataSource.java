@@ -0,0 +1,107 @@
+package tn.esprit.spring.configs;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most {@code maxConcurrency} connections out of the pool at once. A caller that cannot get
+ * a permit within the timeout fails with a {@link SQLTransientConnectionException} instead of
+ * queueing inside the pool; the permit is given back when the connection is closed.
+ */
+public class LimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long timeoutMillis;
+    private final LongAdder rejections = new LongAdder();
+
+    public LimitedDataSource(DataSource target, int maxConcurrency, long timeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException exception) {
+            permits.release();
+            throw exception;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException exception) {
+            permits.release();
+            throw exception;
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int inUse() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        rejections.increment();
+        throw new SQLTransientConnectionException("No JDBC permit within " + timeoutMillis + " ms ("
+                + maxConcurrency + " connections in use)");
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                try {
+                    return invoke(connection, method, args);
+                } finally {
+                    permits.release();
+                }
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException exception) {
+            throw exception.getTargetException();
+        }
+    }
+}
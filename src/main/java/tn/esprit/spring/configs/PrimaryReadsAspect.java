@@ -0,0 +1,32 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes the connections of the {@link tn.esprit.spring.services.ReadsFromPrimary} service methods to
+ * the primary. The routing is decided when the first statement needs a connection, so the order of
+ * this aspect against the transaction does not matter.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "ski.datasource.replicas")
+@RequiredArgsConstructor
+public class PrimaryReadsAspect {
+
+    private final ReadYourWrites readYourWrites;
+
+    @Around("@annotation(tn.esprit.spring.services.ReadsFromPrimary)")
+    public Object onPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        readYourWrites.enterPrimaryReads();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            readYourWrites.exitPrimaryReads();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package tn.esprit.spring.configs;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Keeps the reads of a client on the primary for a while after it wrote, so that it sees its own
+ * writes even when the replicas are a little behind. The deadline is per thread: the
+ * {@link tn.esprit.spring.filters.ReadYourWritesFilter} carries it from one request of the client to
+ * the next in a cookie. The {@link tn.esprit.spring.services.ReadsFromPrimary} methods read from the
+ * primary whoever calls them.
+ */
+public class ReadYourWrites {
+
+    private final long windowMillis;
+    private final ThreadLocal<Long> primaryUntil = new ThreadLocal<>();
+    private final ThreadLocal<LongConsumer> onWrite = new ThreadLocal<>();
+    private final ThreadLocal<int[]> primaryReads = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ReadYourWrites(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public long windowMillis() {
+        return windowMillis;
+    }
+
+    /** Starts a request of a client whose reads stay on the primary until {@code until} (epoch millis) */
+    public void open(long until, LongConsumer onWrite) {
+        primaryUntil.set(until);
+        this.onWrite.set(onWrite);
+    }
+
+    public void close() {
+        primaryUntil.remove();
+        onWrite.remove();
+    }
+
+    /** Called once a write transaction committed on the primary */
+    public void wrote() {
+        long until = System.currentTimeMillis() + windowMillis;
+        primaryUntil.set(until);
+        LongConsumer listener = onWrite.get();
+        if (listener != null) {
+            listener.accept(until);
+        }
+    }
+
+    /** Starts a {@link tn.esprit.spring.services.ReadsFromPrimary} method, possibly nested in another */
+    public void enterPrimaryReads() {
+        primaryReads.get()[0]++;
+    }
+
+    public void exitPrimaryReads() {
+        primaryReads.get()[0]--;
+    }
+
+    public boolean pinnedToPrimary() {
+        if (primaryReads.get()[0] > 0) {
+            return true;
+        }
+        Long until = primaryUntil.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,50 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Hikari pools behind a {@link ReplicaRoutingDataSource}: the primary, then the replicas. They are
+ * not {@code DataSource} beans, so that the application keeps a single one, and are closed with the
+ * application context.
+ */
+@Slf4j
+public class ReplicaPools implements DisposableBean {
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+
+    public ReplicaPools(HikariDataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+    }
+
+    public HikariDataSource primary() {
+        return primary;
+    }
+
+    public List<HikariDataSource> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() {
+        for (HikariDataSource replica : replicas) {
+            close(replica);
+        }
+        close(primary);
+    }
+
+    private static void close(HikariDataSource pool) {
+        try {
+            pool.close();
+        } catch (RuntimeException e) {
+            log.warn("Could not close the pool {}", pool.getPoolName(), e);
+        }
+    }
+}
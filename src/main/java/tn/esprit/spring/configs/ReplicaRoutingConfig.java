@@ -0,0 +1,107 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * With {@code ski.datasource.replicas} set, the application {@link DataSource} routes the read-only
+ * transactions to those replicas through a {@link ReplicaRoutingDataSource}; the primary is still
+ * configured by {@code spring.datasource.*}. Every pool gets the {@code spring.datasource.hikari.*}
+ * settings and the primary credentials, publishes the usual {@code hikaricp.*} metrics tagged with its
+ * pool name, and is closed with the context by {@link ReplicaPools}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ski.datasource.replicas")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${ski.datasource.read-your-writes:5s}") Duration window) {
+        return new ReadYourWrites(window.toMillis());
+    }
+
+    @Bean
+    public ReplicaPools replicaPools(DataSourceProperties properties, Environment environment,
+                                     @Value("${ski.datasource.replicas}") List<String> replicaUrls) {
+        Binder binder = Binder.get(environment);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(pool(properties, binder, replicaUrls.get(i).trim(), "ski-replica-" + i));
+        }
+        return new ReplicaPools(pool(properties, binder, properties.determineUrl(), "ski-primary"), replicas);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaPools replicaPools, ReadYourWrites readYourWrites,
+                                 @Value("${ski.datasource.replica.max-lag:5s}") Duration maxLag) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaPools.primary(),
+                new ArrayList<>(replicaPools.replicas()), maxLag.toMillis(), readYourWrites));
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService replicaLagChecks(DataSource dataSource,
+                                                     @Value("${ski.datasource.replica.check-interval:1s}") Duration interval) throws SQLException {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        ScheduledExecutorService checks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ski-replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checks.scheduleWithFixedDelay(routing::checkLag, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return checks;
+    }
+
+    /* Boot only instruments DataSource beans; a pool it already reached through the routing is left alone */
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReplicaPools replicaPools) {
+        return registry -> {
+            List<HikariDataSource> pools = new ArrayList<>(replicaPools.replicas());
+            pools.add(replicaPools.primary());
+            for (HikariDataSource pool : pools) {
+                if (pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+                    pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                }
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder replicaLagMetrics(DataSource dataSource) throws SQLException {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        return registry -> {
+            for (int i = 0; i < routing.replicaCount(); i++) {
+                int replica = i;
+                Gauge.builder("ski.datasource.replica.lag", routing, r -> r.lagMillis(replica) == Long.MAX_VALUE ? Double.NaN : r.lagMillis(replica))
+                        .description("Replication lag of the replica at the last check, in milliseconds")
+                        .tag("replica", String.valueOf(replica))
+                        .register(registry);
+            }
+        };
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
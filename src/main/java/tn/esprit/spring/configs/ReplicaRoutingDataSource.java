@@ -0,0 +1,121 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the connections of read-only transactions to the replicas, in turn, and every other
+ * connection to the primary. A replica more than {@code maxLagMillis} behind, or whose lag could not
+ * be measured, gets no reads until it catches up; with no replica left the reads go to the primary,
+ * as do the reads of a client that just wrote and those of the
+ * {@link tn.esprit.spring.services.ReadsFromPrimary} methods (see {@link ReadYourWrites}).
+ * <p>
+ * The lag comes from {@link #checkLag()}: it writes the time into {@code replication_heartbeat} on
+ * the primary and reads back what each replica has. The routing decision is taken when a statement
+ * first needs the connection, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final JdbcTemplate primary;
+    private final List<JdbcTemplate> replicas;
+    private final long maxLagMillis;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicLongArray lagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long maxLagMillis, ReadYourWrites readYourWrites) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas.stream().map(JdbcTemplate::new).collect(Collectors.toList());
+        this.maxLagMillis = maxLagMillis;
+        this.readYourWrites = readYourWrites;
+        this.lagMillis = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            lagMillis.set(i, UNKNOWN);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWrites.wrote();
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (readYourWrites.pinnedToPrimary()) {
+            return PRIMARY;
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = Math.floorMod(start + i, replicas.size());
+            if (lagMillis.get(replica) <= maxLagMillis) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /** Measures how far behind the primary each replica is */
+    public void checkLag() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.update("update replication_heartbeat set beat_millis = ? where id = 1", now);
+        } catch (RuntimeException e) {
+            log.warn("Could not write the replication heartbeat: {}", e.getMessage());
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            long lag;
+            try {
+                Long beat = replicas.get(i).queryForObject("select beat_millis from replication_heartbeat where id = 1", Long.class);
+                lag = beat == null ? UNKNOWN : Math.max(0, now - beat);
+            } catch (RuntimeException e) {
+                log.warn("Could not read the replication heartbeat of replica {}: {}", i, e.getMessage());
+                lag = UNKNOWN;
+            }
+            if ((lag <= maxLagMillis) != (lagMillis.get(i) <= maxLagMillis)) {
+                log.info("Replica {} {} reads (lag {} ms)", i, lag <= maxLagMillis ? "takes" : "no longer takes",
+                        lag == UNKNOWN ? "unknown" : lag);
+            }
+            lagMillis.set(i, lag);
+        }
+    }
+
+    public int replicaCount() {
+        return replicas.size();
+    }
+
+    /** Lag of the replica at the last check, {@link Long#MAX_VALUE} when unknown */
+    public long lagMillis(int replica) {
+        return lagMillis.get(replica);
+    }
+}
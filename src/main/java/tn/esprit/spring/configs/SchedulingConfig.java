@@ -0,0 +1,47 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Scheduled jobs run unless {@code ski.scheduling.enabled=false}, e.g. in tests (see
+ * {@link SchedulingDisabledCheck}).
+ * <p>
+ * They get their own pool of {@code ski.scheduling.pool-size} threads named {@code ski-job-*}, off the
+ * request threads; the threads are virtual with {@code ski.execution.virtual-threads=true}. Every job
+ * shares the pool: the two subscription reports, which can each hold a thread for a long run, the
+ * registration journal replay and the idempotency key purge. Below {@value #MIN_POOL_SIZE} threads, long
+ * reports delay the replay, which is logged at startup.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "ski.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+
+    /* One thread per subscription report, one for the journal replay and one for the purge */
+    static final int MIN_POOL_SIZE = 4;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${ski.scheduling.pool-size:4}") int poolSize,
+                                                 @Value("${ski.execution.virtual-threads:false}") boolean virtualThreads) {
+        if (poolSize < MIN_POOL_SIZE) {
+            log.warn("ski.scheduling.pool-size={}: long subscription reports can delay the registration journal replay "
+                    + "and the idempotency key purge, {} threads run them all at once", poolSize, MIN_POOL_SIZE);
+        }
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("ski-job-");
+        if (virtualThreads) {
+            scheduler.setThreadFactory(VirtualThreads.factory("ski-job-"));
+        }
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
@@ -0,0 +1,25 @@
+package tn.esprit.spring.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code ski.scheduling.enabled=false} none of the scheduled jobs run: the start fails if the
+ * registration journal is enabled, whose records would never be replayed and would hold their seats
+ * for good, and warns that the reports and the idempotency key purge are off.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "ski.scheduling.enabled", havingValue = "false")
+public class SchedulingDisabledCheck {
+
+    public SchedulingDisabledCheck(@Value("${ski.registration.journal.enabled:false}") boolean journalEnabled) {
+        if (journalEnabled) {
+            throw new IllegalStateException("ski.registration.journal.enabled=true needs ski.scheduling.enabled=true "
+                    + "to replay the journal");
+        }
+        log.warn("Scheduling is disabled: no subscription reports, and expired idempotency keys are not purged");
+    }
+}
@@ -0,0 +1,82 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/hibernatecache}: hit, miss and put counts of every second-level cache region,
+ * plus the evictions reported by the JCache provider.
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+@RequiredArgsConstructor
+public class SecondLevelCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Object> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Long> evictions = evictionsByCache();
+
+        Map<String, Object> regions = new TreeMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.put(name, region(region, evictions.get(name)));
+            }
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        body.put("hits", statistics.getSecondLevelCacheHitCount());
+        body.put("misses", statistics.getSecondLevelCacheMissCount());
+        body.put("puts", statistics.getSecondLevelCachePutCount());
+        body.put("queryHits", statistics.getQueryCacheHitCount());
+        body.put("queryMisses", statistics.getQueryCacheMissCount());
+        body.put("regions", regions);
+        return body;
+    }
+
+    private static Map<String, Object> region(CacheRegionStatistics region, Long evictions) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("hits", region.getHitCount());
+        values.put("misses", region.getMissCount());
+        values.put("puts", region.getPutCount());
+        values.put("elementsInMemory", region.getElementCountInMemory());
+        values.put("evictions", evictions == null ? 0L : evictions);
+        return values;
+    }
+
+    /* JCache publishes per-cache statistics, evictions included, as CacheStatistics MBeans */
+    private static Map<String, Long> evictionsByCache() {
+        Map<String, Long> evictions = new TreeMap<>();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                String cache = name.getKeyProperty("Cache");
+                if (cache.startsWith("\"")) {
+                    cache = ObjectName.unquote(cache);
+                }
+                evictions.merge(cache, (Long) server.getAttribute(name, "CacheEvictions"), Long::sum);
+            }
+        } catch (JMException e) {
+            return evictions;
+        }
+        return evictions;
+    }
+}
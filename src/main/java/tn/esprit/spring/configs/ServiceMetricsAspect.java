@@ -0,0 +1,43 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public method of the service implementations, tagged with the service, the method and
+ * the exception thrown (if any). Repository calls are timed by Spring Boot as
+ * {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    public static final String SERVICE_TIMER = "ski.service.invocations";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * tn.esprit.spring.services.*ServicesImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable throwable) {
+            exception = throwable.getClass().getSimpleName();
+            throw throwable;
+        } finally {
+            sample.stop(Timer.builder(SERVICE_TIMER)
+                    .description("Latency of the service layer")
+                    .tag("service", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Imports a CSV file of skiers at startup:
+ * {@code java -jar app.jar --ski.import.skiers.file=skiers.csv --spring.main.web-application-type=none --ski.scheduling.enabled=false}.
+ * The import id defaults to the file name, so running the same command again after a failure
+ * resumes the import.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("ski.import.skiers.file")
+@RequiredArgsConstructor
+public class SkierImportRunner implements ApplicationRunner {
+
+    private final ISkierServices skierServices;
+
+    @Value("${ski.import.skiers.file}")
+    private String file;
+
+    @Value("${ski.import.skiers.id:}")
+    private String importId;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path path = Paths.get(file);
+        String id = importId.isEmpty() ? path.getFileName().toString() : importId;
+        try (Reader csv = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            SkierImportReport report = skierServices.importSkiers(csv, id);
+            log.info("Imported {} skiers from {} in {} ms ({} rows/s)", report.getImported(), path,
+                    report.getElapsedMillis(), Math.round(report.getRowsPerSecond()));
+        }
+    }
+}
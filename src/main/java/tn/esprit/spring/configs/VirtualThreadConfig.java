@@ -0,0 +1,41 @@
+package tn.esprit.spring.configs;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in execution mode ({@code ski.execution.virtual-threads=true}, Java 21+): Tomcat requests and
+ * streamed responses run on virtual threads (the scheduled jobs too, see {@link SchedulingConfig}), so a slow database no
+ * longer exhausts a fixed pool of request threads. JDBC concurrency stays bounded by
+ * {@link JdbcConcurrencyLimiterConfig}.
+ * <p>
+ * Untested opt-in: the build JDK is 17, which cannot start this mode. The {@code virtual-threads} Maven
+ * profile runs the test suite in it on a JDK 21.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ski.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        return VirtualThreads.executor("ski-virtual-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequests(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor()));
+    }
+}
@@ -0,0 +1,51 @@
+package tn.esprit.spring.configs;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads of the running JVM. The project compiles for Java 17, so they are looked up
+ * reflectively: asking for them on a JVM older than 21 fails fast with an explicit message.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /** A factory of virtual threads named {@code prefix0}, {@code prefix1}... */
+    public static ThreadFactory factory(String prefix) {
+        checkSupported();
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("Virtual threads are not available", exception);
+        }
+    }
+
+    /** An executor starting one virtual thread per task. */
+    public static ExecutorService executor(String prefix) {
+        checkSupported();
+        try {
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory(prefix));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("Virtual threads are not available", exception);
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("ski.execution.virtual-threads needs Java 21 or later, running on "
+                    + Runtime.version());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package tn.esprit.spring.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An update made from a stale copy (its {@code version} is not the current one) is answered with
+ * 409 Conflict: the client reloads the entity and applies its change again.
+ */
+@Slf4j
+@RestControllerAdvice
+public class ConflictExceptionHandler {
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, Object> conflict(OptimisticLockingFailureException exception) {
+        log.debug("Update rejected: {}", exception.getMessage());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", HttpStatus.CONFLICT.getReasonPhrase());
+        body.put("message", "The entity was modified by someone else; reload it and try again");
+        return body;
+    }
+}
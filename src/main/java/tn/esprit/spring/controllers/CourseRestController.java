@@ -4,9 +4,13 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.CourseOccupancy;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.services.ICourseServices;
+import tn.esprit.spring.services.KeysetPage;
+import tn.esprit.spring.services.TableVersions.Table;
 
 import java.util.List;
 
@@ -24,10 +28,12 @@ public class CourseRestController {
         return  courseServices.addCourse(course);
     }
 
-    @Operation(description = "Retrieve all Courses")
+    @Operation(description = "Retrieve all Courses, a page of 'limit' rows after the id 'after'")
     @GetMapping("/all")
-    public List<Course> getAllCourses(){
-        return courseServices.retrieveAllCourses();
+    @VersionedResponse(value = Table.COURSE, cacheControl = "${ski.http.cache-control.courses:no-cache}")
+    public List<Course> getAllCourses(@RequestParam(value = "after", required = false) Long after,
+                                      @RequestParam(value = "limit", defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit){
+        return courseServices.retrieveAllCourses(after, limit);
     }
 
     @Operation(description = "Update Course ")
@@ -38,8 +44,17 @@ public class CourseRestController {
 
     @Operation(description = "Retrieve Course by Id")
     @GetMapping("/get/{id-course}")
+    @VersionedResponse(value = Table.COURSE, cacheControl = "${ski.http.cache-control.courses:no-cache}")
     public Course getById(@PathVariable("id-course") Long numCourse){
         return courseServices.retrieveCourse(numCourse);
     }
 
+    @Operation(description = "Seats taken and free in each Course, week by week, optionally for one type, support or level")
+    @GetMapping("/occupancy")
+    public List<CourseOccupancy> getOccupancy(@RequestParam(value = "typeCourse", required = false) TypeCourse typeCourse,
+                                              @RequestParam(value = "support", required = false) Support support,
+                                              @RequestParam(value = "level", required = false) Integer level) {
+        return courseServices.retrieveOccupancy(typeCourse, support, level);
+    }
+
 }
@@ -4,8 +4,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.InstructorView;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.services.IInstructorServices;
+import tn.esprit.spring.services.KeysetPage;
 
 import java.util.List;
 
@@ -27,10 +29,11 @@ public class InstructorRestController {
     public Instructor addAndAssignToInstructor(@RequestBody Instructor instructor, @PathVariable("numCourse")Long numCourse){
         return  instructorServices.addInstructorAndAssignToCourse(instructor,numCourse);
     }
-    @Operation(description = "Retrieve all Instructors")
+    @Operation(description = "Retrieve all Instructors, a page of 'limit' rows after the id 'after'")
     @GetMapping("/all")
-    public List<Instructor> getAllInstructors(){
-        return instructorServices.retrieveAllInstructors();
+    public List<InstructorView> getAllInstructors(@RequestParam(value = "after", required = false) Long after,
+                                                  @RequestParam(value = "limit", defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit){
+        return instructorServices.retrieveAllInstructors(after, limit);
     }
 
     @Operation(description = "Update Instructor ")
@@ -4,8 +4,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.PisteView;
 import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.services.IPisteServices;
+import tn.esprit.spring.services.KeysetPage;
+import tn.esprit.spring.services.TableVersions.Table;
 
 import java.util.List;
 
@@ -22,10 +25,12 @@ public class PisteRestController {
     public Piste addPiste(@RequestBody Piste piste){
         return  pisteServices.addPiste(piste);
     }
-    @Operation(description = "Retrieve all Pistes")
+    @Operation(description = "Retrieve all Pistes, a page of 'limit' rows after the id 'after'")
     @GetMapping("/all")
-    public List<Piste> getAllPistes(){
-        return pisteServices.retrieveAllPistes();
+    @VersionedResponse(value = Table.PISTE, cacheControl = "${ski.http.cache-control.pistes:no-cache}")
+    public List<PisteView> getAllPistes(@RequestParam(value = "after", required = false) Long after,
+                                        @RequestParam(value = "limit", defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit){
+        return pisteServices.retrieveAllPistes(after, limit);
     }
 
     @Operation(description = "Retrieve Piste by Id")
@@ -34,6 +39,12 @@ public class PisteRestController {
         return pisteServices.retrievePiste(numPiste);
     }
 
+    @Operation(description = "Ids of the Skiers who went down a Piste")
+    @GetMapping("/skiers/{id-piste}")
+    public long[] getSkierIds(@PathVariable("id-piste") Long numPiste) {
+        return pisteServices.retrieveSkierIdsOnPiste(numPiste);
+    }
+
     @Operation(description = "Delete Piste by Id")
     @DeleteMapping("/delete/{id-piste}")
     public void deleteById(@PathVariable("id-piste") Long numPiste){
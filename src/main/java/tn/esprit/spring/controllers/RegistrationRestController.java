@@ -1,24 +1,57 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationStatus;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.CourseCapacityLedger;
 import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.RegistrationServicesImpl;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @Tag(name = "\uD83D\uDDD3️Registration Management")
 @RestController
 @RequestMapping("/registration")
 @RequiredArgsConstructor
 public class RegistrationRestController {
+    public static final String TEXT_CSV = "text/csv";
+    public static final String CSV_HEADER = "numWeek,numCourse,typeCourse,price,numSkier,firstName,lastName";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final IRegistrationServices registrationServices;
 
+    private final ObjectMapper objectMapper;
+
     @Operation(description = "Add Registration and Assign to Skier")
     @PutMapping("/addAndAssignToSkier/{numSkieur}")
     public Registration addAndAssignToSkier(@RequestBody Registration registration,
@@ -34,13 +67,30 @@ public class RegistrationRestController {
     }
 
 
-    @Operation(description = "Add Registration and Assign to Skier and Course")
+    @Operation(description = "Add Registration and Assign to Skier and Course; while the database is unreachable, "
+            + "202 once the registration is journaled against a held seat")
     @PutMapping("/addAndAssignToSkierAndCourse/{numSkieur}/{numCourse}")
-    public Registration addAndAssignToSkierAndCourse(@RequestBody Registration registration,
-                                                     @PathVariable("numSkieur") Long numSkieur,
-                                                     @PathVariable("numCourse") Long numCourse)
+    public ResponseEntity<Object> addAndAssignToSkierAndCourse(@RequestBody Registration registration,
+                                                               @PathVariable("numSkieur") Long numSkieur,
+                                                               @PathVariable("numCourse") Long numCourse)
     {
-        return  registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse);
+        try {
+            return ResponseEntity.ok(registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse));
+        } catch (RuntimeException exception) {
+            RegistrationResult journaled = RegistrationServicesImpl.isDatabaseUnavailable(exception)
+                    ? registrationServices.journalRegistration(registration, numSkieur, numCourse) : null;
+            if (journaled == null) {
+                throw exception;
+            }
+            return journaled.getStatus() == RegistrationStatus.JOURNALED
+                    ? ResponseEntity.accepted().body(journaled) : ResponseEntity.ok(journaled);
+        }
+    }
+
+    @Operation(description = "Add a group of Registrations, each one assigned to its Skier and Course")
+    @PostMapping("/batch")
+    public List<RegistrationResult> addInBatch(@RequestBody List<RegistrationRequest> registrations) {
+        return registrationServices.addRegistrationsInBatch(registrations);
     }
 
     @Operation(description = "Numbers of the weeks when an instructor has given lessons in a given support")
@@ -49,4 +99,115 @@ public class RegistrationRestController {
                                                                   @PathVariable("support") Support support) {
         return registrationServices.numWeeksCourseOfInstructorBySupport(numInstructor,support);
     }
+
+    @Operation(description = "Export the Registrations of a range of weeks, or of the weeks of a range of dates (yyyy-MM-dd, "
+            + "possibly across New Year), as CSV or NDJSON ('format'), gzipped when the client accepts it")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "fromWeek", required = false) Integer fromWeek,
+                                                        @RequestParam(value = "toWeek", required = false) Integer toWeek,
+                                                        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean byWeek = fromWeek != null || toWeek != null;
+        boolean byDate = from != null || to != null;
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        /* Checked before the response starts: once rows are streamed the status can no longer change */
+        if (byWeek && byDate || !(ndjson || "csv".equalsIgnoreCase(format))) {
+            return ResponseEntity.badRequest().build();
+        }
+        int first;
+        int last;
+        if (from != null && to != null) {
+            if (from.isAfter(to)) {
+                return ResponseEntity.badRequest().build();
+            }
+            /* A year of dates covers every week; a shorter range wraps (first > last) when it crosses New Year */
+            boolean wholeYear = !from.plusWeeks(CourseCapacityLedger.LAST_WEEK).isAfter(to);
+            first = wholeYear ? CourseCapacityLedger.FIRST_WEEK : week(from);
+            last = wholeYear ? CourseCapacityLedger.LAST_WEEK : week(to);
+        } else if (byDate) {
+            first = from != null ? week(from) : CourseCapacityLedger.FIRST_WEEK;
+            last = to != null ? week(to) : CourseCapacityLedger.LAST_WEEK;
+        } else {
+            first = fromWeek != null ? fromWeek : CourseCapacityLedger.FIRST_WEEK;
+            last = toWeek != null ? toWeek : CourseCapacityLedger.LAST_WEEK;
+            if (first > last) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        if (!CourseCapacityLedger.isValidWeek(first) || !CourseCapacityLedger.isValidWeek(last)) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            if (ndjson) {
+                writeNdjson(target, first, last);
+            } else {
+                writeCsv(target, first, last);
+            }
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ndjson ? SkierRestController.APPLICATION_NDJSON : TEXT_CSV))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"registrations-weeks-" + first + "-" + last
+                        + (ndjson ? ".ndjson" : ".csv") + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private void writeCsv(OutputStream out, int fromWeek, int toWeek) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        registrationServices.exportRegistrations(fromWeek, toWeek, row -> {
+            try {
+                writer.write(row.getNumWeek() + "," + row.getNumCourse() + "," + row.getTypeCourse() + ","
+                        + row.getPrice() + "," + row.getNumSkier() + "," + csv(row.getFirstName()) + ","
+                        + csv(row.getLastName()) + "\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void writeNdjson(OutputStream out, int fromWeek, int toWeek) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(RegistrationExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            registrationServices.exportRegistrations(fromWeek, toWeek, row -> {
+                try {
+                    writer.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /* Weeks are numbered as in the ISO calendar, week 53 is counted with week 52 */
+    private static int week(LocalDate date) {
+        return Math.min(CourseCapacityLedger.LAST_WEEK, date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
 }
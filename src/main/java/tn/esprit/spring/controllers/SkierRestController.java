@@ -1,13 +1,33 @@
 package tn.esprit.spring.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.dto.SkierView;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ExcursionBacklogFullException;
 import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.KeysetPage;
+import tn.esprit.spring.services.SkierCsvImporter;
+import tn.esprit.spring.services.SkierImportException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Tag(name = "\uD83C\uDFC2 Skier Management")
@@ -16,8 +36,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SkierRestController {
 
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final ISkierServices skierServices;
 
+    private final ObjectMapper objectMapper;
+
     @Operation(description = "Add Skier")
     @PostMapping("/add")
     public Skier addSkier(@RequestBody Skier skier){
@@ -37,15 +61,32 @@ public class SkierRestController {
         return skierServices.assignSkierToSubscription(numSkier, numSub);
     }
 
-    @Operation(description = "Assign Skier To Piste")
+    @Operation(description = "Assign Skier To Piste (a lift scan); 204 once recorded, 202 when queued for the write-behind")
     @PutMapping("/assignToPiste/{numSkier}/{numPiste}")
-    public Skier assignToPiste(@PathVariable("numSkier")Long numSkier,
-                               @PathVariable("numPiste") Long numPiste){
-        return skierServices.assignSkierToPiste(numSkier,numPiste);
+    public ResponseEntity<Void> assignToPiste(@PathVariable("numSkier")Long numSkier,
+                                              @PathVariable("numPiste") Long numPiste){
+        if (skierServices.queueSkierToPiste(numSkier, numPiste)) {
+            return ResponseEntity.accepted().build();
+        }
+        skierServices.assignSkierToPiste(numSkier,numPiste);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(ExcursionBacklogFullException.class)
+    public ResponseEntity<String> backlogFull(ExcursionBacklogFullException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(exception.getMessage());
+    }
+    @Operation(description = "Ids of the Pistes a Skier went down")
+    @GetMapping("/pistes/{id-skier}")
+    public long[] getPisteIds(@PathVariable("id-skier") Long numSkier) {
+        return skierServices.retrievePisteIdsOfSkier(numSkier);
     }
+
     @Operation(description = "retrieve Skiers By Subscription Type")
     @GetMapping("/getSkiersBySubscription")
-    public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
+    public List<SkierView> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
         return skierServices.retrieveSkiersBySubscriptionType(typeSubscription);
     }
     @Operation(description = "Retrieve Skier by Id")
@@ -60,10 +101,47 @@ public class SkierRestController {
         skierServices.removeSkier(numSkier);
     }
 
-    @Operation(description = "Retrieve all Skiers")
+    @Operation(description = "Retrieve all Skiers, a page of 'limit' rows after the id 'after'")
     @GetMapping("/all")
-    public List<Skier> getAllSkiers(){
-        return skierServices.retrieveAllSkiers();
+    public List<SkierView> getAllSkiers(@RequestParam(value = "after", required = false) Long after,
+                                        @RequestParam(value = "limit", defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit){
+        return skierServices.retrieveAllSkiers(after, limit);
+    }
+
+    @Operation(description = "Import Skiers with their subscription from CSV (" + SkierCsvImporter.HEADER + "); "
+            + "an import sent again with the same importId resumes after its last committed chunk, "
+            + "so the caller picks the importId")
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public SkierImportReport importSkiers(InputStream csv,
+                                          @RequestParam("importId") String importId) throws IOException {
+        return skierServices.importSkiers(new InputStreamReader(csv, StandardCharsets.UTF_8), importId);
+    }
+
+    @ExceptionHandler(SkierImportException.class)
+    public ResponseEntity<String> rejectedImport(SkierImportException exception) {
+        return ResponseEntity.badRequest().body(exception.getMessage());
+    }
+
+    @Operation(description = "Stream all Skiers, one JSON document per line")
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllSkiers() {
+        ObjectWriter writer = objectMapper.writerFor(SkierView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                skierServices.streamAllSkiers(skier -> {
+                    try {
+                        writer.writeValue(generator, skier);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
     }
 
 }
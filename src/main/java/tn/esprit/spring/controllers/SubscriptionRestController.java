@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.*;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.services.ISubscriptionServices;
+import tn.esprit.spring.services.TableVersions.Table;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -27,12 +28,14 @@ public class SubscriptionRestController {
     }
     @Operation(description = "Retrieve Subscription by Id")
     @GetMapping("/get/{id-subscription}")
+    @VersionedResponse(value = Table.SUBSCRIPTION, cacheControl = "${ski.http.cache-control.subscriptions:no-cache}")
     public Subscription getById(@PathVariable("id-subscription") Long numSubscription){
         return subscriptionServices.retrieveSubscriptionById(numSubscription);
     }
     
     @Operation(description = "Retrieve Subscriptions by Type")
     @GetMapping("/all/{typeSub}")
+    @VersionedResponse(value = Table.SUBSCRIPTION, cacheControl = "${ski.http.cache-control.subscriptions:no-cache}")
     public Set<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
         return subscriptionServices.getSubscriptionByType(typeSubscription);
     }
@@ -48,4 +51,10 @@ public class SubscriptionRestController {
         return subscriptionServices.retrieveSubscriptionsByDates(startDate, endDate);
     }
 
+    @Operation(description = "Monthly recurring revenue")
+    @GetMapping("/mrr")
+    public Float getMonthlyRecurringRevenue(){
+        return subscriptionServices.retrieveMonthlyRecurringRevenue();
+    }
+
 }
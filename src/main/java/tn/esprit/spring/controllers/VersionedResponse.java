@@ -0,0 +1,25 @@
+package tn.esprit.spring.controllers;
+
+import tn.esprit.spring.services.TableVersions.Table;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A GET endpoint whose response only depends on these tables: it is sent with an ETag built from
+ * their change versions, and a request whose {@code If-None-Match} still matches is answered 304
+ * before the handler (and the database) is reached.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface VersionedResponse {
+
+    Table[] value();
+
+    /** Cache-Control header of the response; placeholders are resolved, empty sends none. */
+    String cacheControl() default "no-cache";
+}
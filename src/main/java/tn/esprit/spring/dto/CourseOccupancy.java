@@ -0,0 +1,26 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+
+/**
+ * One row of the occupancy heatmap: the seats taken in a course for each week of the season,
+ * {@code seatsTaken[w - 1]} being week {@code w}. {@code capacity} and {@code seatsFree} are null for
+ * the courses without a seat limit.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CourseOccupancy {
+    Long numCourse;
+    TypeCourse typeCourse;
+    Support support;
+    int level;
+    Integer capacity;
+    int[] seatsTaken;
+    int[] seatsFree;
+}
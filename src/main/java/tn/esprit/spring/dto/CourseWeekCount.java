@@ -0,0 +1,13 @@
+package tn.esprit.spring.dto;
+
+/**
+ * Number of registrations held by a course for a given week.
+ */
+public interface CourseWeekCount {
+
+    Long getNumCourse();
+
+    Integer getNumWeek();
+
+    Long getSeats();
+}
@@ -0,0 +1,23 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+
+/**
+ * Expired subscription with the name of its skier, read by a single subscription/skier join.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ExpiredSubscriptionView {
+    Long numSub;
+    LocalDate endDate;
+    String firstName;
+    String lastName;
+}
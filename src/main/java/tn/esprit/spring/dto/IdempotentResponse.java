@@ -0,0 +1,25 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A request sent with an {@code Idempotency-Key}, and its response once it completed
+ * ({@code status} is null while it runs).
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotentResponse {
+    String fingerprint;
+    Integer status;
+    String contentType;
+    byte[] body;
+    long createdAt;
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
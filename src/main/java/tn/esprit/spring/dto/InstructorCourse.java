@@ -0,0 +1,15 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.Support;
+
+/**
+ * A course taught by an instructor, with the support it is taught on.
+ */
+public interface InstructorCourse {
+
+    Long getNumInstructor();
+
+    Long getNumCourse();
+
+    Support getSupport();
+}
@@ -0,0 +1,33 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Instructor;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Read model of an instructor with the courses it gives, built from an instructor whose courses
+ * were fetched in the same query.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class InstructorView {
+    Long numInstructor;
+    String firstName;
+    String lastName;
+    LocalDate dateOfHire;
+    Set<Course> courses;
+    long version;
+
+    public static InstructorView of(Instructor instructor) {
+        return new InstructorView(instructor.getNumInstructor(), instructor.getFirstName(),
+                instructor.getLastName(), instructor.getDateOfHire(), instructor.getCourses(),
+                instructor.getVersion());
+    }
+}
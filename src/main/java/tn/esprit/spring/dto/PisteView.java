@@ -0,0 +1,21 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.Color;
+
+/**
+ * Read model of a piste, without the skiers who went down it.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PisteView {
+    Long numPiste;
+    String namePiste;
+    Color color;
+    int length;
+    int slope;
+}
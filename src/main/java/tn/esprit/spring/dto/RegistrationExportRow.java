@@ -0,0 +1,24 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeCourse;
+
+/**
+ * One registration as exported for accounting, built by a JPQL constructor expression: the week,
+ * the course and its price, and the skier.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RegistrationExportRow {
+    int numWeek;
+    Long numCourse;
+    TypeCourse typeCourse;
+    Float price;
+    Long numSkier;
+    String firstName;
+    String lastName;
+}
@@ -0,0 +1,30 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Outcome of one entry of a group booking, in the order the entries were sent.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RegistrationResult {
+    Long numSkier;
+    Long numCourse;
+    int numWeek;
+    RegistrationStatus status;
+    Long numRegistration;
+
+    public boolean isAccepted() {
+        return status == RegistrationStatus.ACCEPTED;
+    }
+}
@@ -0,0 +1,8 @@
+package tn.esprit.spring.dto;
+
+public enum RegistrationStatus {
+    ACCEPTED, UNKNOWN_SKIER, UNKNOWN_COURSE, INVALID_WEEK, DUPLICATE, AGE_REJECTED, FULL,
+    /* The database was unreachable: a seat is held and the registration kept in the local journal,
+       written when it is replayed */
+    JOURNALED
+}
@@ -0,0 +1,13 @@
+package tn.esprit.spring.dto;
+
+/**
+ * Skier, course and week of an existing registration.
+ */
+public interface SkierCourseWeek {
+
+    Long getNumSkier();
+
+    Long getNumCourse();
+
+    Integer getNumWeek();
+}
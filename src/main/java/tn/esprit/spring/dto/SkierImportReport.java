@@ -0,0 +1,22 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Outcome of a CSV skier import: {@code resumedAfter} rows had been committed by earlier runs of
+ * the same import and were skipped, {@code imported} rows were committed by this run.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SkierImportReport {
+    String importId;
+    long resumedAfter;
+    long imported;
+    int chunks;
+    long elapsedMillis;
+    double rowsPerSecond;
+}
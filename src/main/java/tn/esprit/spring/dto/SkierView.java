@@ -0,0 +1,33 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+/**
+ * Read model of a skier and its subscription, built by a single JPQL constructor expression.
+ * Registrations and pistes are not part of it, so listing skiers never triggers lazy loading.
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SkierView {
+    Long numSkier;
+    String firstName;
+    String lastName;
+    LocalDate dateOfBirth;
+    String city;
+    SubscriptionView subscription;
+
+    public SkierView(Long numSkier, String firstName, String lastName, LocalDate dateOfBirth, String city,
+                     Long numSub, LocalDate startDate, LocalDate endDate, Float price, TypeSubscription typeSub) {
+        this.numSkier = numSkier;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.dateOfBirth = dateOfBirth;
+        this.city = city;
+        this.subscription = numSub == null ? null : new SubscriptionView(numSub, startDate, endDate, price, typeSub);
+    }
+}
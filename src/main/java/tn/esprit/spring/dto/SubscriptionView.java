@@ -0,0 +1,20 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SubscriptionView {
+    Long numSub;
+    LocalDate startDate;
+    LocalDate endDate;
+    Float price;
+    TypeSubscription typeSub;
+}
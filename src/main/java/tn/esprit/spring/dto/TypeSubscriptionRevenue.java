@@ -0,0 +1,15 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.TypeSubscription;
+
+/**
+ * Sum of the prices and number of subscriptions of one subscription type.
+ */
+public interface TypeSubscriptionRevenue {
+
+    TypeSubscription getTypeSub();
+
+    Double getRevenue();
+
+    Long getSubscriptions();
+}
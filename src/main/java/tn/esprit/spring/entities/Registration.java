@@ -6,7 +6,11 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.UniqueConstraint;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
@@ -23,10 +27,15 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uq_registration_skier_course_week",
+		columnNames = {"skier_num_skier", "course_num_course", "numWeek"}),
+		indexes = @Index(name = "idx_registration_course_week", columnList = "course_num_course, numWeek"))
 public class Registration implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.TABLE, generator="registration_gen")
+	@TableGenerator(name="registration_gen", table="id_generator", pkColumnName="sequence_name",
+			valueColumnName="next_val", pkColumnValue="registration", allocationSize=50)
 	Long numRegistration;
 	int numWeek;
 
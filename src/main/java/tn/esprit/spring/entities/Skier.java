@@ -24,7 +24,9 @@ import lombok.experimental.FieldDefaults;
 public class Skier implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.TABLE, generator="skier_gen")
+	@TableGenerator(name="skier_gen", table="id_generator", pkColumnName="sequence_name",
+			valueColumnName="next_val", pkColumnValue="skier", allocationSize=50)
 	Long numSkier;
 	String firstName;
 	String lastName;
@@ -46,6 +48,9 @@ public class Skier implements Serializable {
 	@OneToMany(mappedBy = "skier")
 	Set<Registration> registrations;
 
+	@Version
+	long version;
+
 
 
 
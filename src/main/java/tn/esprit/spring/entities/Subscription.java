@@ -19,15 +19,22 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_subscription_type_start", columnList = "typeSub, startDate"),
+		@Index(name = "idx_subscription_end_date", columnList = "endDate, numSub")})
 public class Subscription implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.TABLE, generator="subscription_gen")
+	@TableGenerator(name="subscription_gen", table="id_generator", pkColumnName="sequence_name",
+			valueColumnName="next_val", pkColumnValue="subscription", allocationSize=50)
 	Long numSub;
 	LocalDate startDate;
 	LocalDate endDate;
 	Float price;
 //	@Enumerated(EnumType.STRING)
 	TypeSubscription typeSub;
+	@Version
+	long version;
 
 }
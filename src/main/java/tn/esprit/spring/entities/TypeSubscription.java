@@ -1,5 +1,19 @@
 package tn.esprit.spring.entities;
 
+import java.time.LocalDate;
+
 public enum TypeSubscription {
-	ANNUAL, MONTHLY, SEMESTRIEL
+	ANNUAL, MONTHLY, SEMESTRIEL;
+
+	/** Last day covered by a subscription of this type starting on {@code startDate}. */
+	public LocalDate endDate(LocalDate startDate) {
+		switch (this) {
+			case ANNUAL:
+				return startDate.plusYears(1);
+			case SEMESTRIEL:
+				return startDate.plusMonths(6);
+			default:
+				return startDate.plusMonths(1);
+		}
+	}
 }
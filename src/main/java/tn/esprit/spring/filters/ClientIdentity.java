@@ -0,0 +1,30 @@
+package tn.esprit.spring.filters;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Names the client of a request for the per-client state of the filters: its {@value #API_KEY}
+ * header when it is one of {@code ski.api-keys}, its address otherwise. An unknown key would name a
+ * new client with every new value, so it is ignored.
+ */
+@Component
+public class ClientIdentity {
+
+    public static final String API_KEY = "X-Api-Key";
+
+    private final Set<String> apiKeys;
+
+    public ClientIdentity(@Value("${ski.api-keys:}") Set<String> apiKeys) {
+        this.apiKeys = apiKeys.stream().filter(key -> !key.isBlank()).collect(Collectors.toUnmodifiableSet());
+    }
+
+    public String of(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
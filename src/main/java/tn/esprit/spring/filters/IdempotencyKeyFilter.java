@@ -0,0 +1,217 @@
+package tn.esprit.spring.filters;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import tn.esprit.spring.dto.IdempotentResponse;
+import tn.esprit.spring.services.IdempotencyKeys;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Runs a mutating request sent with an {@value #HEADER} header once: its retries get the recorded
+ * response, marked with {@value #REPLAYED}, without reaching the controller. A retry sent while the
+ * first request still runs gets a 409, the same key sent with another method, URL or body a 422.
+ * Responses of 500 and above are not recorded, their retries run again. Keys are scoped to the client
+ * (see {@link ClientIdentity}).
+ * <p>
+ * The body is held in memory for the fingerprint, and the response for the record: a body over
+ * {@code ski.idempotency.max-body} is answered 413. The skier import is not covered, a large upload
+ * that restarts by its {@code importId}.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String SKIER_IMPORT = "/skier/import";
+
+    private final IdempotencyKeys idempotencyKeys;
+    private final ClientIdentity clientIdentity;
+    private final int maxBodyBytes;
+
+    public IdempotencyKeyFilter(IdempotencyKeys idempotencyKeys, ClientIdentity clientIdentity,
+                                @Value("${ski.idempotency.max-body:1MB}") DataSize maxBody) {
+        this.idempotencyKeys = idempotencyKeys;
+        this.clientIdentity = clientIdentity;
+        this.maxBodyBytes = (int) Math.min(Integer.MAX_VALUE - 8, maxBody.toBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(HEADER) == null
+                || request.getRequestURI().substring(request.getContextPath().length()).startsWith(SKIER_IMPORT)
+                || HttpMethod.GET.matches(request.getMethod())
+                || HttpMethod.HEAD.matches(request.getMethod())
+                || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HEADER);
+        if (header.isEmpty() || header.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), HEADER + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = IdempotencyKeys.scope(clientIdentity.of(request), header);
+        byte[] body = readBody(request);
+        if (body == null) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                    "The body of a request sent with " + HEADER + " is limited to " + maxBodyBytes + " bytes");
+            return;
+        }
+        String fingerprint = fingerprint(request, body);
+
+        IdempotencyKeys.Claim claim = idempotencyKeys.claim(key, fingerprint);
+        if (!claim.isClaimed()) {
+            answer(claim.getRecorded(), fingerprint, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), captured);
+        } catch (IOException | ServletException | RuntimeException exception) {
+            idempotencyKeys.release(key, fingerprint, claim);
+            throw exception;
+        }
+        try {
+            if (captured.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                idempotencyKeys.complete(key, fingerprint, claim, captured.getStatus(), captured.getContentType(), captured.getContentAsByteArray());
+            } else {
+                idempotencyKeys.release(key, fingerprint, claim);
+            }
+        } finally {
+            /* The request ran: its client gets the response even if it could not be recorded */
+            captured.copyBodyToResponse();
+        }
+    }
+
+    /* The body, or null past max-body */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    private static void answer(IdempotentResponse recorded, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!recorded.getFingerprint().equals(fingerprint)) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), HEADER + " already used by another request");
+        } else if (!recorded.isCompleted()) {
+            response.sendError(HttpStatus.CONFLICT.value(), "The request sent with this " + HEADER + " is still running");
+        } else {
+            response.setStatus(recorded.getStatus());
+            response.setHeader(REPLAYED, "true");
+            if (recorded.getContentType() != null) {
+                response.setContentType(recorded.getContentType());
+            }
+            response.setContentLength(recorded.getBody().length);
+            response.getOutputStream().write(recorded.getBody());
+        }
+    }
+
+    /* SHA-256 of the method, the URL and the body */
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + ' ' + request.getRequestURI() + '?' + request.getQueryString() + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest(body);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /* The body was read for the fingerprint: the controller reads it again from memory */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /* The whole body is already there: available at once, then all read */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package tn.esprit.spring.filters;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds excess requests before they reach a controller, with {@code ski.rate-limit.enabled}:
+ * <ul>
+ *     <li>each client (see {@link ClientIdentity}) has a token bucket per class of endpoint, reads,
+ *     registration writes and other writes, answering 429 once empty;</li>
+ *     <li>past {@code ski.rate-limit.max-in-flight} requests running at once, the next ones get a
+ *     503; a streamed response counts until it completes.</li>
+ * </ul>
+ * Both come with a {@code Retry-After}. A bucket is a single {@link AtomicLong} updated by CAS, the
+ * buckets of the idle clients are evicted from a bounded cache; the actuator endpoints are not
+ * limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@ConditionalOnProperty(name = "ski.rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String SHED = "ski.http.shed";
+
+    enum EndpointClass { READS, REGISTRATIONS, WRITES }
+
+    private final MeterRegistry meterRegistry;
+    private final TokenBucket.Limit reads;
+    private final TokenBucket.Limit registrations;
+    private final TokenBucket.Limit writes;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Cache<String, TokenBucket> buckets;
+    private final ClientIdentity clientIdentity;
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           @Value("${ski.rate-limit.reads.capacity:100}") int readsCapacity,
+                           @Value("${ski.rate-limit.reads.per-second:20}") double readsPerSecond,
+                           @Value("${ski.rate-limit.registrations.capacity:10}") int registrationsCapacity,
+                           @Value("${ski.rate-limit.registrations.per-second:2}") double registrationsPerSecond,
+                           @Value("${ski.rate-limit.writes.capacity:20}") int writesCapacity,
+                           @Value("${ski.rate-limit.writes.per-second:5}") double writesPerSecond,
+                           @Value("${ski.rate-limit.max-in-flight:200}") int maxInFlight,
+                           @Value("${ski.rate-limit.clients:100000}") long clients,
+                           ClientIdentity clientIdentity) {
+        this.meterRegistry = meterRegistry;
+        this.reads = new TokenBucket.Limit(readsCapacity, readsPerSecond);
+        this.registrations = new TokenBucket.Limit(registrationsCapacity, registrationsPerSecond);
+        this.writes = new TokenBucket.Limit(writesCapacity, writesPerSecond);
+        this.maxInFlight = maxInFlight;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(clients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.clientIdentity = clientIdentity;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        TokenBucket bucket = buckets.get(clientIdentity.of(request) + '|' + endpointClass, key -> new TokenBucket(limit(endpointClass)));
+        long waitNanos = bucket.tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            shed(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, endpointClass, "Rate limit exceeded");
+            return;
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            shed(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), endpointClass, "Too many requests in progress");
+            return;
+        }
+        Runnable release = releaseOnce();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private Runnable releaseOnce() {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    private void shed(HttpServletResponse response, HttpStatus status, long waitNanos, EndpointClass endpointClass, String message)
+            throws IOException {
+        meterRegistry.counter(SHED, "status", String.valueOf(status.value()),
+                "class", endpointClass.name().toLowerCase(Locale.ROOT)).increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+        response.sendError(status.value(), message);
+    }
+
+    private static EndpointClass classify(HttpServletRequest request) {
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+            return EndpointClass.READS;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/registration") ? EndpointClass.REGISTRATIONS : EndpointClass.WRITES;
+    }
+
+    private TokenBucket.Limit limit(EndpointClass endpointClass) {
+        switch (endpointClass) {
+            case READS:
+                return reads;
+            case REGISTRATIONS:
+                return registrations;
+            default:
+                return writes;
+        }
+    }
+
+    /* Keeps the slot of a streamed response (StreamingResponseBody) until the stream ends */
+    private static final class ReleaseOnCompletion implements AsyncListener {
+
+        private final Runnable release;
+
+        private ReleaseOnCompletion(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    /**
+     * Token bucket kept as the time at which it will be full again (the generic cell rate
+     * algorithm): a request takes a token by moving that time one emission interval forward, and is
+     * refused when this would put it more than {@code capacity} intervals ahead of now.
+     */
+    static final class TokenBucket {
+
+        static final class Limit {
+            final long intervalNanos;
+            final long toleranceNanos;
+
+            Limit(int capacity, double perSecond) {
+                this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+                this.toleranceNanos = intervalNanos * capacity;
+            }
+        }
+
+        private final Limit limit;
+        private final AtomicLong fullAt;
+
+        TokenBucket(Limit limit) {
+            this.limit = limit;
+            this.fullAt = new AtomicLong(System.nanoTime() - limit.toleranceNanos);
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + limit.intervalNanos;
+                long ahead = next - now;
+                if (ahead > limit.toleranceNanos) {
+                    return ahead - limit.toleranceNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
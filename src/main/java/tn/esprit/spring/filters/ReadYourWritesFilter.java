@@ -0,0 +1,61 @@
+package tn.esprit.spring.filters;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+import tn.esprit.spring.configs.ReadYourWrites;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Carries the {@link ReadYourWrites} deadline of a client between its requests: a request that
+ * commits a write answers with a {@value #COOKIE} cookie, and the requests sent with it read from the
+ * primary until the deadline it holds.
+ */
+@Component
+@ConditionalOnProperty(name = "ski.datasource.replicas")
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "SKI_PRIMARY_UNTIL";
+
+    private final ReadYourWrites readYourWrites;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        readYourWrites.open(primaryUntil(request), until -> {
+            if (!response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+                cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+                cookie.setMaxAge((int) Math.ceil(readYourWrites.windowMillis() / 1000.0));
+                cookie.setHttpOnly(true);
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            readYourWrites.close();
+        }
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException ignored) {
+            return 0;
+        }
+    }
+}
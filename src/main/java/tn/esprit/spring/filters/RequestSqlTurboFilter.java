@@ -0,0 +1,27 @@
+package tn.esprit.spring.filters;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Lets Hibernate's SQL statements through on the threads serving a request flagged by
+ * {@link SqlLoggingFilter}. Everywhere else the {@code org.hibernate.SQL} logger keeps its level, so
+ * SQL logging costs nothing while {@code spring.jpa.show-sql} stays off.
+ */
+public class RequestSqlTurboFilter extends TurboFilter {
+
+    public static final String SQL_LOGGER = "org.hibernate.SQL";
+    public static final String MDC_KEY = "sql";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!SQL_LOGGER.equals(logger.getName()) || MDC.get(MDC_KEY) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.ACCEPT;
+    }
+}
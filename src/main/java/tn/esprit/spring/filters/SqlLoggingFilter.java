@@ -0,0 +1,54 @@
+package tn.esprit.spring.filters;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Logs the SQL of a single request: send it with {@code X-Log-Sql: <token>} and every statement it runs
+ * is written by {@link RequestSqlTurboFilter}, the other requests staying silent. Without a configured
+ * token no request is flagged, so anonymous callers cannot flood the log.
+ */
+@Component
+@ConditionalOnProperty(name = "ski.logging.per-request-sql", havingValue = "true")
+public class SqlLoggingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Log-Sql";
+
+    private final byte[] token;
+
+    public SqlLoggingFilter(@Value("${ski.logging.per-request-sql-token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isFlagged(request.getHeader(HEADER))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        MDC.put(RequestSqlTurboFilter.MDC_KEY, request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(RequestSqlTurboFilter.MDC_KEY);
+        }
+    }
+
+    /* Constant-time comparison, so the token cannot be guessed byte by byte */
+    private boolean isFlagged(String header) {
+        return token.length > 0 && header != null
+                && MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package tn.esprit.spring.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * The {@code excursion} join table behind {@code Skier.pistes}, written and read with plain JDBC:
+ * recording that a skier went down a piste is one insert, without loading the skier's pistes, and
+ * the reads return the ids as primitive arrays instead of entities.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExcursionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records the excursion; an excursion already recorded is left as it is.
+     *
+     * @return {@code true} if the row was inserted
+     */
+    public boolean add(long numSkier, long numPiste) {
+        try {
+            return jdbcTemplate.update("insert into excursion (num_skier, num_piste) values (?, ?)", numSkier, numPiste) == 1;
+        } catch (DuplicateKeyException alreadyRecorded) {
+            return false;
+        }
+    }
+
+    /** Records the excursions, each a {numSkier, numPiste} pair, in one statement; those already recorded are left as they are. */
+    public void addAll(List<long[]> excursions) {
+        if (excursions.isEmpty()) {
+            return;
+        }
+        String rows = String.join(", ", Collections.nCopies(excursions.size(), "(?, ?)"));
+        Object[] ids = excursions.stream().flatMapToLong(LongStream::of).boxed().toArray();
+        jdbcTemplate.update("insert into excursion (num_skier, num_piste) values " + rows
+                + " on duplicate key update num_piste = num_piste", ids);
+    }
+
+    /** Ids of the pistes the skier went down, in ascending order. */
+    public long[] findPisteIdsBySkier(long numSkier) {
+        return ids("select num_piste from excursion where num_skier = ? order by num_piste", numSkier);
+    }
+
+    /** Ids of the skiers who went down the piste, in ascending order. */
+    public long[] findSkierIdsByPiste(long numPiste) {
+        return ids("select num_skier from excursion where num_piste = ? order by num_skier", numPiste);
+    }
+
+    private long[] ids(String sql, long key) {
+        LongStream.Builder ids = LongStream.builder();
+        jdbcTemplate.query(sql, rs -> {
+            ids.add(rs.getLong(1));
+        }, key);
+        return ids.build().toArray();
+    }
+}
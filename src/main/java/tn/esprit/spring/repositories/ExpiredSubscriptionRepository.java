@@ -0,0 +1,45 @@
+package tn.esprit.spring.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tn.esprit.spring.dto.ExpiredSubscriptionView;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code subscription.expiry_reported} flag: which expired subscriptions the job already reported,
+ * whatever their id or when they were written. The column is not mapped, so saving the entity keeps it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExpiredSubscriptionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /* Keyset on (end_date, num_sub) within a run: a row whose flag could not be set is not read twice */
+    public List<ExpiredSubscriptionView> findUnreported(LocalDate afterDate, long afterSub, LocalDate today, int limit) {
+        return jdbcTemplate.query("select s.num_sub, s.end_date, sk.first_name, sk.last_name "
+                        + "from skier sk join subscription s on s.num_sub = sk.subscription_num_sub "
+                        + "where s.expiry_reported = false and s.end_date <= ? "
+                        + "and (s.end_date > ? or (s.end_date = ? and s.num_sub > ?)) "
+                        + "order by s.end_date, s.num_sub limit ?",
+                (rs, row) -> new ExpiredSubscriptionView(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getString(3), rs.getString(4)),
+                Date.valueOf(today), Date.valueOf(afterDate), Date.valueOf(afterDate), afterSub, limit);
+    }
+
+    /* Only while the end date is the one reported: a subscription moved in between is reported again */
+    public void markReported(List<ExpiredSubscriptionView> reported) {
+        jdbcTemplate.batchUpdate("update subscription set expiry_reported = true where num_sub = ? and end_date = ?",
+                reported.stream()
+                        .map(sub -> new Object[]{sub.getNumSub(), Date.valueOf(sub.getEndDate())})
+                        .collect(Collectors.toList()));
+    }
+
+    public void forgetReported(long numSub) {
+        jdbcTemplate.update("update subscription set expiry_reported = false where num_sub = ?", numSub);
+    }
+}
@@ -1,16 +1,25 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface ICourseRepository extends JpaRepository<Course, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Course> findByNumCourseGreaterThanOrderByNumCourseAsc(Long numCourse, Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Course> findAllByOrderByNumCourseAsc();
 
 }
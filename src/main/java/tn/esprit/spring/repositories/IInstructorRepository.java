@@ -1,11 +1,34 @@
 package tn.esprit.spring.repositories;
 
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.InstructorCourse;
 import tn.esprit.spring.entities.Instructor;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 
 public interface IInstructorRepository extends JpaRepository<Instructor, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select i.numInstructor from Instructor i where i.numInstructor > :after order by i.numInstructor")
+    List<Long> findIdsAfter(@Param("after") Long numInstructor, Pageable pageable);
+
+    @EntityGraph(attributePaths = "courses")
+    @Query("select distinct i from Instructor i where i.numInstructor in :ids order by i.numInstructor")
+    List<Instructor> findWithCoursesByNumInstructorIn(@Param("ids") Collection<Long> numInstructors);
+
+    @Query("select i.numInstructor as numInstructor, c.numCourse as numCourse, c.support as support " +
+            "from Instructor i join i.courses c")
+    List<InstructorCourse> findCourseAssignments();
+
 }
@@ -1,9 +1,24 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.PisteView;
 import tn.esprit.spring.entities.Piste;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface IPisteRepository extends JpaRepository<Piste, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new tn.esprit.spring.dto.PisteView(p.numPiste, p.namePiste, p.color, p.length, p.slope) " +
+            "from Piste p where p.numPiste > :after order by p.numPiste")
+    List<PisteView> findPageAfter(@Param("after") Long numPiste, Pageable pageable);
+
 }
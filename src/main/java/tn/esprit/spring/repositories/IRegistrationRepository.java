@@ -1,14 +1,24 @@
 package tn.esprit.spring.repositories;
 
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.dto.SkierCourseWeek;
 import tn.esprit.spring.entities.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface IRegistrationRepository extends CrudRepository<Registration, Long> {
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface IRegistrationRepository extends JpaRepository<Registration, Long> {
 
     long countByCourseAndNumWeek(Course course, int numWeek);
     @Query("select reg.numWeek from Registration reg " +
@@ -23,6 +33,36 @@ public interface IRegistrationRepository extends CrudRepository<Registration, Lo
 
   //  long countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
 
+    @Query("select reg.course.numCourse as numCourse, reg.numWeek as numWeek, count(reg) as seats " +
+            "from Registration reg " +
+            "where reg.course is not null " +
+            "group by reg.course.numCourse, reg.numWeek")
+    List<CourseWeekCount> countRegistrationsByCourseAndWeek();
+
+    @Query("select reg.skier.numSkier as numSkier, reg.course.numCourse as numCourse, reg.numWeek as numWeek " +
+            "from Registration reg " +
+            "where reg.skier.numSkier in :skiers and reg.course.numCourse in :courses")
+    List<SkierCourseWeek> findSkierCourseWeeks(@Param("skiers") Collection<Long> numSkiers,
+                                               @Param("courses") Collection<Long> numCourses);
+
+    /* Rows are pulled from the driver 1000 at a time; must be consumed inside a transaction */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new tn.esprit.spring.dto.RegistrationExportRow(reg.numWeek, c.numCourse, c.typeCourse, c.price, " +
+            "s.numSkier, s.firstName, s.lastName) " +
+            "from Registration reg join reg.course c join reg.skier s " +
+            "where reg.numWeek between :fromWeek and :toWeek " +
+            "order by reg.numWeek, c.numCourse, s.numSkier")
+    Stream<RegistrationExportRow> streamForExport(@Param("fromWeek") int fromWeek, @Param("toWeek") int toWeek);
+
+    /* A range across New Year (fromWeek > toWeek): fromWeek..52 first, then 1..toWeek */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new tn.esprit.spring.dto.RegistrationExportRow(reg.numWeek, c.numCourse, c.typeCourse, c.price, " +
+            "s.numSkier, s.firstName, s.lastName) " +
+            "from Registration reg join reg.course c join reg.skier s " +
+            "where reg.numWeek >= :fromWeek or reg.numWeek <= :toWeek " +
+            "order by case when reg.numWeek >= :fromWeek then 0 else 1 end, reg.numWeek, c.numCourse, s.numSkier")
+    Stream<RegistrationExportRow> streamForExportAcrossNewYear(@Param("fromWeek") int fromWeek, @Param("toWeek") int toWeek);
+
 
 
 
@@ -1,17 +1,45 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.SkierView;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ISkierRepository extends JpaRepository<Skier, Long> {
    List<Skier> findBySubscription_TypeSub(TypeSubscription typeSubscription);
    Skier findBySubscription(Subscription subscription);
 
+   @Query("select s from Skier s left join fetch s.subscription where s.numSkier in :ids")
+   List<Skier> findAllWithSubscriptionByNumSkierIn(@Param("ids") Collection<Long> numSkiers);
+
+   String SKIER_VIEW = "select new tn.esprit.spring.dto.SkierView(s.numSkier, s.firstName, s.lastName, " +
+           "s.dateOfBirth, s.city, sub.numSub, sub.startDate, sub.endDate, sub.price, sub.typeSub) " +
+           "from Skier s left join s.subscription sub ";
+
+   @Query(SKIER_VIEW + "where s.numSkier > :after order by s.numSkier")
+   List<SkierView> findPageAfter(@Param("after") Long numSkier, Pageable pageable);
+
+   @Query(SKIER_VIEW + "where sub.typeSub = :typeSub order by s.numSkier")
+   List<SkierView> findViewsBySubscriptionType(@Param("typeSub") TypeSubscription typeSubscription);
+
+   /* Rows are pulled from the driver 1000 at a time; must be consumed inside a transaction */
+   @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+   @Query(SKIER_VIEW + "order by s.numSkier")
+   Stream<SkierView> streamAllBy();
+
 
 }
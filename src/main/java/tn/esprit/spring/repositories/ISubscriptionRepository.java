@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.TypeSubscriptionRevenue;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
@@ -25,5 +26,9 @@ public interface ISubscriptionRepository extends CrudRepository<Subscription, Lo
     @Query("select (sum(s.price))/(count(s)) from Subscription s where s.typeSub = ?1")
     Float recurringRevenueByTypeSubEquals(TypeSubscription typeSub);
 
+    @Query("select s.typeSub as typeSub, sum(s.price) as revenue, count(s) as subscriptions " +
+            "from Subscription s group by s.typeSub")
+    List<TypeSubscriptionRevenue> sumRevenueByTypeSub();
+
 
 }
@@ -0,0 +1,73 @@
+package tn.esprit.spring.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tn.esprit.spring.dto.IdempotentResponse;
+
+import java.util.Optional;
+
+/**
+ * The {@code idempotency_key} table: a key is claimed by inserting its row, and the row receives the
+ * response once the request completed. The fingerprint and {@code created_at} of the row are the
+ * token of the claim: a request whose claim was taken over no longer completes or releases the row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<IdempotentResponse> find(String key) {
+        return jdbcTemplate.query("select fingerprint, status, content_type, body, created_at from idempotency_key where idempotency_key = ?",
+                (rs, row) -> new IdempotentResponse(rs.getString(1), (Integer) rs.getObject(2), rs.getString(3),
+                        rs.getBytes(4), rs.getLong(5)), key).stream().findFirst();
+    }
+
+    /**
+     * @return {@code false} if the key is already claimed
+     */
+    public boolean claim(String key, String fingerprint, long now) {
+        try {
+            return jdbcTemplate.update("insert into idempotency_key (idempotency_key, fingerprint, created_at) values (?, ?, ?)",
+                    key, fingerprint, now) == 1;
+        } catch (DuplicateKeyException claimed) {
+            return false;
+        }
+    }
+
+    /**
+     * Claims the key of a request still running since before {@code claimedBefore}.
+     *
+     * @return {@code false} if the request completed, or another retry took the key over first
+     */
+    public boolean takeOver(String key, String fingerprint, long claimedBefore, long now) {
+        return jdbcTemplate.update("update idempotency_key set fingerprint = ?, created_at = ? "
+                + "where idempotency_key = ? and status is null and created_at < ?", fingerprint, now, key, claimedBefore) == 1;
+    }
+
+    /**
+     * @return {@code false} if the claim made at {@code claimedAt} is no longer the one of the row
+     */
+    public boolean complete(String key, String fingerprint, long claimedAt, int status, String contentType, byte[] body) {
+        return jdbcTemplate.update("update idempotency_key set status = ?, content_type = ?, body = ? "
+                        + "where idempotency_key = ? and fingerprint = ? and created_at = ? and status is null",
+                status, contentType, body, key, fingerprint, claimedAt) == 1;
+    }
+
+    /** Deletes the claim made at {@code claimedAt}, if it still is the one of the row */
+    public void release(String key, String fingerprint, long claimedAt) {
+        jdbcTemplate.update("delete from idempotency_key where idempotency_key = ? and fingerprint = ? and created_at = ? and status is null",
+                key, fingerprint, claimedAt);
+    }
+
+    /** Deletes the row created at {@code createdAt} whatever its state, not one claimed since */
+    public void delete(String key, long createdAt) {
+        jdbcTemplate.update("delete from idempotency_key where idempotency_key = ? and created_at = ?", key, createdAt);
+    }
+
+    public int deleteCreatedBefore(long createdAt) {
+        return jdbcTemplate.update("delete from idempotency_key where created_at < ?", createdAt);
+    }
+}
@@ -0,0 +1,31 @@
+package tn.esprit.spring.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code table_version} table: one change counter per versioned table, shared by every instance.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TableVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Runs in the caller's transaction, if any: the row stays locked until it commits */
+    public void bump(String table) {
+        jdbcTemplate.update("update table_version set version = version + 1 where table_name = ?", table);
+    }
+
+    public Map<String, Long> findAll() {
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query("select table_name, version from table_version", rs -> {
+            versions.put(rs.getString(1), rs.getLong(2));
+        });
+        return versions;
+    }
+}
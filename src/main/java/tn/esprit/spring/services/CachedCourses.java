@@ -0,0 +1,30 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.Course;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+/**
+ * Courses read outside any transaction: one held by the second-level cache is served without a
+ * connection, so it can still be read while the database is unreachable. A course that is not cached
+ * is loaded from the database, and fails like any query when it is down.
+ */
+@Component
+@RequiredArgsConstructor
+public class CachedCourses {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public Optional<Course> find(Long numCourse) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return Optional.ofNullable(entityManager.find(Course.class, numCourse));
+        } finally {
+            entityManager.close();
+        }
+    }
+}
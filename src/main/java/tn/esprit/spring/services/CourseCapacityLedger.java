@@ -0,0 +1,143 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-memory count of the seats taken in each course, week by week.
+ * <p>
+ * Seats are reserved with a compare-and-set loop, so concurrent admissions can never push a course
+ * past its capacity and no COUNT query is needed to decide. The ledger is warmed from the
+ * registrations table at startup; a seat must be reserved before the registration is written and
+ * released again if the write fails.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseCapacityLedger {
+
+    public static final int FIRST_WEEK = 1;
+    public static final int LAST_WEEK = 52;
+
+    private final IRegistrationRepository registrationRepository;
+
+    /* numCourse -> seats taken, indexed by week number (index 0 is unused) */
+    private final ConcurrentMap<Long, AtomicIntegerArray> seats = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void warmUp() {
+        int ignored = 0;
+        for (CourseWeekCount count : registrationRepository.countRegistrationsByCourseAndWeek()) {
+            if (!isValidWeek(count.getNumWeek())) {
+                ignored++;
+                continue;
+            }
+            weeksOf(count.getNumCourse()).addAndGet(count.getNumWeek(), count.getSeats().intValue());
+        }
+        log.info("Capacity ledger warmed for {} courses ({} registrations outside weeks {}-{} ignored)",
+                seats.size(), ignored, FIRST_WEEK, LAST_WEEK);
+    }
+
+    public static boolean isValidWeek(int numWeek) {
+        return numWeek >= FIRST_WEEK && numWeek <= LAST_WEEK;
+    }
+
+    /**
+     * Takes one seat in the course for the week if fewer than {@code capacity} are already taken.
+     *
+     * @return {@code true} if the seat is now held by the caller
+     */
+    public boolean tryReserve(Long numCourse, int numWeek, int capacity) {
+        checkWeek(numWeek);
+        AtomicIntegerArray weeks = weeksOf(numCourse);
+        for (;;) {
+            int taken = weeks.get(numWeek);
+            if (taken >= capacity) {
+                return false;
+            }
+            if (weeks.compareAndSet(numWeek, taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Counts a seat that was taken without an admission check, e.g. a registration moved to a course.
+     */
+    public void record(Long numCourse, int numWeek) {
+        if (isValidWeek(numWeek)) {
+            weeksOf(numCourse).incrementAndGet(numWeek);
+        }
+    }
+
+    public void release(Long numCourse, int numWeek) {
+        if (!isValidWeek(numWeek)) {
+            return;
+        }
+        AtomicIntegerArray weeks = seats.get(numCourse);
+        if (weeks == null) {
+            return;
+        }
+        for (;;) {
+            int taken = weeks.get(numWeek);
+            if (taken == 0 || weeks.compareAndSet(numWeek, taken, taken - 1)) {
+                return;
+            }
+        }
+    }
+
+    public int seatsTaken(Long numCourse, int numWeek) {
+        checkWeek(numWeek);
+        AtomicIntegerArray weeks = seats.get(numCourse);
+        return weeks == null ? 0 : weeks.get(numWeek);
+    }
+
+    /**
+     * Seats taken in the course week by week, {@code [w - 1]} being week {@code w}. Each week is read
+     * atomically, the weeks together are not a snapshot.
+     */
+    public int[] seatsTakenByWeek(Long numCourse) {
+        int[] taken = new int[LAST_WEEK];
+        AtomicIntegerArray weeks = seats.get(numCourse);
+        if (weeks != null) {
+            for (int week = FIRST_WEEK; week <= LAST_WEEK; week++) {
+                taken[week - 1] = weeks.get(week);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Weeks in which the course holds at least one registration, as a bitmap: bit {@code w} is week {@code w}.
+     */
+    public long weeksTaken(Long numCourse) {
+        AtomicIntegerArray weeks = seats.get(numCourse);
+        long bitmap = 0L;
+        if (weeks != null) {
+            for (int week = FIRST_WEEK; week <= LAST_WEEK; week++) {
+                if (weeks.get(week) > 0) {
+                    bitmap |= 1L << week;
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    private AtomicIntegerArray weeksOf(Long numCourse) {
+        return seats.computeIfAbsent(numCourse, k -> new AtomicIntegerArray(LAST_WEEK + 1));
+    }
+
+    private static void checkWeek(int numWeek) {
+        if (!isValidWeek(numWeek)) {
+            throw new IllegalArgumentException("Week " + numWeek + " is outside weeks " + FIRST_WEEK + "-" + LAST_WEEK);
+        }
+    }
+}
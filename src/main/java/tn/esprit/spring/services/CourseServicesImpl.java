@@ -2,36 +2,80 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.CourseOccupancy;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.repositories.ICourseRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 @AllArgsConstructor
 @Service
 public class CourseServicesImpl implements  ICourseServices{
 
     private ICourseRepository courseRepository;
+    private InstructorScheduleIndex scheduleIndex;
+    private TableVersions tableVersions;
+    private CourseCapacityLedger capacityLedger;
 
     @Override
-    public List<Course> retrieveAllCourses() {
-        return courseRepository.findAll();
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
+    public List<Course> retrieveAllCourses(Long after, int limit) {
+        return courseRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(KeysetPage.after(after), KeysetPage.limit(limit));
     }
 
     @Override
+    @Transactional
     public Course addCourse(Course course) {
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        tableVersions.changed(TableVersions.Table.COURSE);
+        return saved;
     }
 
     @Override
+    @Transactional
     public Course updateCourse(Course course) {
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        AfterCommit.run(() -> scheduleIndex.courseChanged(saved));
+        tableVersions.changed(TableVersions.Table.COURSE);
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
     public Course retrieveCourse(Long numCourse) {
         return courseRepository.findById(numCourse).orElse(null);
     }
 
-
+    @Override
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
+    public List<CourseOccupancy> retrieveOccupancy(TypeCourse typeCourse, Support support, Integer level) {
+        /* The course list comes from the query cache, the seats from the capacity ledger */
+        List<CourseOccupancy> occupancy = new ArrayList<>();
+        for (Course course : courseRepository.findAllByOrderByNumCourseAsc()) {
+            if ((typeCourse != null && course.getTypeCourse() != typeCourse)
+                    || (support != null && course.getSupport() != support)
+                    || (level != null && course.getLevel() != level)) {
+                continue;
+            }
+            int[] taken = capacityLedger.seatsTakenByWeek(course.getNumCourse());
+            Integer capacity = course.getTypeCourse() == TypeCourse.INDIVIDUAL ? null
+                    : RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY;
+            int[] free = null;
+            if (capacity != null) {
+                free = new int[taken.length];
+                for (int week = 0; week < taken.length; week++) {
+                    free[week] = Math.max(0, capacity - taken[week]);
+                }
+            }
+            occupancy.add(new CourseOccupancy(course.getNumCourse(), course.getTypeCourse(), course.getSupport(),
+                    course.getLevel(), capacity, taken, free));
+        }
+        return occupancy;
+    }
 }
@@ -0,0 +1,12 @@
+package tn.esprit.spring.services;
+
+/**
+ * A lift scan could not be queued: the write-behind backlog stayed full for the whole offer
+ * timeout, or the application is shutting down.
+ */
+public class ExcursionBacklogFullException extends RuntimeException {
+
+    public ExcursionBacklogFullException(String message) {
+        super(message);
+    }
+}
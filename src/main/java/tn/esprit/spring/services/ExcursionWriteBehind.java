@@ -0,0 +1,329 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.repositories.ExcursionRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind ingestion of the lift gate scans, with {@code ski.excursions.write-behind.enabled}:
+ * a scan is acknowledged once it is in a bounded queue, and a single flusher thread writes the queued
+ * excursions in multi-row inserts of at most {@code batch-size} rows, a skier scanned twice on the
+ * same piste being written once.
+ * <p>
+ * When the queue is full, {@link #offer} waits up to {@code offer-timeout} for room and then
+ * refuses the scan, so the gates slow down instead of the queue growing without bound. A batch that
+ * fails for another reason than an unknown skier or piste is retried until it is written, and the
+ * queue is flushed when the application stops.
+ * <p>
+ * Scans are acknowledged before they are written: when the database still cannot take them
+ * {@code shutdown-timeout} after the stop began, the remaining ones are appended to the
+ * {@code spill-path} file, one {@code numSkier,numPiste} line each, and written first at the next
+ * start. A scan written twice is recorded once.
+ */
+@Slf4j
+@Component
+public class ExcursionWriteBehind implements SmartLifecycle {
+
+    private final ExcursionRepository excursionRepository;
+    private final boolean enabled;
+    private final BlockingQueue<Scan> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final Path spillPath;
+    /* Not the lifecycle monitor: stop() holds that one while it waits for the flusher */
+    private final Object spillLock = new Object();
+    private final Counter coalesced;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    /* System.nanoTime() after which a stopping write-behind spills instead of retrying */
+    private volatile long giveUpAt;
+    private Thread flusher;
+
+    public ExcursionWriteBehind(ExcursionRepository excursionRepository, MeterRegistry meterRegistry,
+                                @Value("${ski.excursions.write-behind.enabled:false}") boolean enabled,
+                                @Value("${ski.excursions.write-behind.queue-capacity:10000}") int queueCapacity,
+                                @Value("${ski.excursions.write-behind.batch-size:500}") int batchSize,
+                                @Value("${ski.excursions.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                @Value("${ski.excursions.write-behind.offer-timeout:100ms}") Duration offerTimeout,
+                                @Value("${ski.excursions.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+                                @Value("${ski.excursions.write-behind.spill-path:data/excursions.spill}") Path spillPath) {
+        this.excursionRepository = excursionRepository;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.offerTimeoutMillis = offerTimeout.toMillis();
+        this.shutdownTimeoutMillis = shutdownTimeout.toMillis();
+        this.spillPath = spillPath;
+        Gauge.builder("ski.excursions.queued", queue, BlockingQueue::size)
+                .description("Lift scans waiting to be written")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("ski.excursions.coalesced")
+                .description("Queued lift scans that repeated one of the same batch")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ski.excursions.rejected")
+                .description("Lift scans refused because the queue stayed full")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ski.excursions.dropped")
+                .description("Queued lift scans of an unknown skier or piste")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the scan.
+     *
+     * @return {@code false} if write-behind is disabled: the caller writes the excursion itself
+     * @throws ExcursionBacklogFullException if the scan cannot be queued
+     */
+    public boolean offer(long numSkier, long numPiste) {
+        if (!enabled) {
+            return false;
+        }
+        if (!running) {
+            throw new ExcursionBacklogFullException("Lift scans are not accepted while the application stops");
+        }
+        try {
+            if (queue.offer(new Scan(numSkier, numPiste), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        throw new ExcursionBacklogFullException(queue.size() + " lift scans are waiting to be written");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            if (!enabled && Files.exists(spillPath)) {
+                log.warn("Lift scans spilled to {} are written once write-behind is enabled again", spillPath);
+            }
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushContinuously, "ski-excursion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        giveUpAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        /* Scans queued while the flusher was finishing its last batch; once a batch had to be
+           spilled the database is not tried again */
+        List<Scan> batch = new ArrayList<>(batchSize);
+        boolean spilling = false;
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (spilling) {
+                spill(batch);
+            } else {
+                spilling = !write(batch, true);
+            }
+            batch.clear();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /* Stopped after the web server, once no more scans come in, and before the DataSource is closed */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1024;
+    }
+
+    private void flushContinuously() {
+        writeSpilled();
+        List<Scan> batch = new ArrayList<>(batchSize);
+        while (running) {
+            Scan first;
+            try {
+                first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                write(batch, true);
+            } catch (RuntimeException e) {
+                /* The flusher is the only writer: it keeps running, the next start writes the batch */
+                log.error("Unexpected failure writing {} lift scans", batch.size(), e);
+                spill(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /* The scans spilled by the previous stop; the file goes once they are all written. If this run
+       stops first, the file is kept as it is and written again at the next start */
+    private void writeSpilled() {
+        if (!Files.exists(spillPath)) {
+            return;
+        }
+        try {
+            writeSpilledScans();
+        } catch (RuntimeException e) {
+            log.error("Could not write the lift scans spilled to {}, they are kept for the next start", spillPath, e);
+        }
+    }
+
+    private void writeSpilledScans() {
+        List<Scan> spilled = new ArrayList<>();
+        try (BufferedReader lines = Files.newBufferedReader(spillPath, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                int comma = line.indexOf(',');
+                try {
+                    spilled.add(new Scan(Long.parseLong(line.substring(0, comma)), Long.parseLong(line.substring(comma + 1))));
+                } catch (RuntimeException torn) {
+                    log.warn("Skipped the torn spilled lift scan '{}'", line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not read the lift scans spilled to {}", spillPath, e);
+            return;
+        }
+        for (int from = 0; from < spilled.size(); from += batchSize) {
+            if (!write(spilled.subList(from, Math.min(spilled.size(), from + batchSize)), false)) {
+                return;
+            }
+        }
+        try {
+            Files.delete(spillPath);
+            log.info("Wrote the {} lift scans spilled to {}", spilled.size(), spillPath);
+        } catch (IOException e) {
+            log.error("Could not delete {}, its lift scans will be written again", spillPath, e);
+        }
+    }
+
+    /* Writes the batch, retrying it every flush interval while the database cannot take it, until
+       shutdown-timeout after the stop began; then the batch is spilled, if asked to, and false returned */
+    private boolean write(List<Scan> scans, boolean spillOnGiveUp) {
+        Set<Scan> batch = new LinkedHashSet<>(scans);
+        coalesced.increment(scans.size() - batch.size());
+        while (true) {
+            DataAccessException failure;
+            try {
+                excursionRepository.addAll(batch.stream()
+                        .map(scan -> new long[]{scan.numSkier, scan.numPiste})
+                        .collect(Collectors.toList()));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                try {
+                    writeOneByOne(batch);
+                    return true;
+                } catch (DataAccessException lost) {
+                    /* What is left of the batch is retried like a failed insert */
+                    failure = lost;
+                }
+            } catch (DataAccessException e) {
+                failure = e;
+            }
+            if (!running && System.nanoTime() - giveUpAt >= 0 || Thread.currentThread().isInterrupted()) {
+                log.error("Could not write {} lift scans before the shutdown timeout: {}", batch.size(), failure.getMessage());
+                if (spillOnGiveUp) {
+                    spill(batch);
+                }
+                return false;
+            }
+            log.warn("Could not write {} lift scans, retrying in {} ms: {}", batch.size(), flushIntervalMillis, failure.getMessage());
+            try {
+                Thread.sleep(flushIntervalMillis);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /* Appended and forced to disk: the next start writes them */
+    private void spill(Collection<Scan> scans) {
+        StringBuilder lines = new StringBuilder(scans.size() * 16);
+        for (Scan scan : scans) {
+            lines.append(scan.numSkier).append(',').append(scan.numPiste).append('\n');
+        }
+        synchronized (spillLock) {
+            try {
+                Path parent = spillPath.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Files.write(spillPath, lines.toString().getBytes(StandardCharsets.US_ASCII),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+                log.warn("Spilled {} lift scans to {}", scans.size(), spillPath);
+            } catch (IOException e) {
+                log.error("Lost {} lift scans, they could not be spilled to {}", scans.size(), spillPath, e);
+            }
+        }
+    }
+
+    /* One scan of an unknown skier or piste fails the whole insert: the others still get written.
+       Each scan written or dropped leaves the batch, any other failure stops with the rest in it */
+    private void writeOneByOne(Set<Scan> batch) {
+        for (Iterator<Scan> scans = batch.iterator(); scans.hasNext(); ) {
+            Scan scan = scans.next();
+            try {
+                excursionRepository.add(scan.numSkier, scan.numPiste);
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                log.warn("Dropped the scan of skier {} on piste {}: {}", scan.numSkier, scan.numPiste, e.getMessage());
+            }
+            scans.remove();
+        }
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class Scan {
+        private final long numSkier;
+        private final long numPiste;
+    }
+}
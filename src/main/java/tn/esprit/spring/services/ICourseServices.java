@@ -1,13 +1,15 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.CourseOccupancy;
 import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeCourse;
 
 import java.util.List;
 
 public interface ICourseServices {
 
-    List<Course> retrieveAllCourses();
+    List<Course> retrieveAllCourses(Long after, int limit);
 
     Course  addCourse(Course  course);
 
@@ -15,5 +17,7 @@ public interface ICourseServices {
 
     Course retrieveCourse(Long numCourse);
 
+    List<CourseOccupancy> retrieveOccupancy(TypeCourse typeCourse, Support support, Integer level);
+
 
 }
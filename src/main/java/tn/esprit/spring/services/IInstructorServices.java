@@ -1,5 +1,6 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.InstructorView;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Support;
@@ -10,7 +11,7 @@ public interface IInstructorServices {
 
     Instructor addInstructor(Instructor instructor);
 
-    List<Instructor> retrieveAllInstructors();
+    List<InstructorView> retrieveAllInstructors(Long after, int limit);
 
     Instructor updateInstructor(Instructor instructor);
 
@@ -1,16 +1,19 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.PisteView;
 import tn.esprit.spring.entities.Piste;
 
 import java.util.List;
 
 public interface IPisteServices {
 
-    List<Piste> retrieveAllPistes();
+    List<PisteView> retrieveAllPistes(Long after, int limit);
 
     Piste  addPiste(Piste  piste);
 
     void removePiste (Long numPiste);
 
     Piste retrievePiste (Long numPiste);
+
+    long[] retrieveSkierIdsOnPiste(Long numPiste);
 }
@@ -1,14 +1,23 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
 import tn.esprit.spring.entities.*;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IRegistrationServices {
 
 	Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier);
 	Registration assignRegistrationToCourse(Long numRegistration, Long numCourse);
 	Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours);
+	/** Journals the registration against a held seat, {@code null} if it cannot be journaled */
+	RegistrationResult journalRegistration(Registration registration, Long numSkier, Long numCourse);
+	Registration replayRegistration(long numSkier, long numCourse, int numWeek);
 	List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support);
+	List<RegistrationResult> addRegistrationsInBatch(List<RegistrationRequest> registrations);
+	void exportRegistrations(int fromWeek, int toWeek, Consumer<RegistrationExportRow> consumer);
 }
 
@@ -1,13 +1,20 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.dto.SkierView;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ISkierServices {
 
-	List<Skier> retrieveAllSkiers();
+	List<SkierView> retrieveAllSkiers(Long after, int limit);
+
+	void streamAllSkiers(Consumer<SkierView> consumer);
 
 	Skier  addSkier(Skier  skier);
 
@@ -20,8 +27,16 @@ public interface ISkierServices {
 	Skier retrieveSkier (Long numSkier);
 
 
-	Skier assignSkierToPiste(Long numSkieur, Long numPiste);
+	/** Records the lift scan; the skier is not loaded */
+	void assignSkierToPiste(Long numSkieur, Long numPiste);
+
+	/** Queues a lift scan for the write-behind, {@code false} if it is disabled */
+	boolean queueSkierToPiste(Long numSkier, Long numPiste);
+
+	long[] retrievePisteIdsOfSkier(Long numSkier);
+
+	List<SkierView> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription);
 
-	List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription);
+	SkierImportReport importSkiers(Reader csv, String importId) throws IOException;
 
 }
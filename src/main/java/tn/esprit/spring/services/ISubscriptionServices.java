@@ -20,4 +20,8 @@ public interface ISubscriptionServices {
 	List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate);
 
 	void retrieveSubscriptions();
+
+	void showMonthlyRecurringRevenue();
+
+	Float retrieveMonthlyRecurringRevenue();
 }
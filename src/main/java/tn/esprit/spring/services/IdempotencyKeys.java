@@ -0,0 +1,168 @@
+package tn.esprit.spring.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.IdempotentResponse;
+import tn.esprit.spring.repositories.IdempotencyKeyRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Responses recorded under an {@code Idempotency-Key} for {@code ski.idempotency.ttl}. Completed
+ * responses are kept in a bounded local cache ({@code ski.idempotency.cache-size} entries, evicted
+ * after the same TTL) in front of the {@code idempotency_key} table, which the other nodes share:
+ * a retry answered from the cache does not touch the database.
+ * <p>
+ * A claim whose request has not completed within {@code ski.idempotency.lease} (its node died, or
+ * could not record the response) is taken over by the next retry. The lease is not renewed: it must
+ * exceed the longest request sent with a key, or that request runs twice; the original then no longer
+ * records nor releases anything, its claim being fenced by the time it was made. While the database
+ * is down, keys are claimed in a local cache instead, so that retries still reach the controller.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeys {
+
+    /** A claim: {@code recorded} is null when this request runs, under the claim made at {@code claimedAt} */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class Claim {
+        IdempotentResponse recorded;
+        long claimedAt;
+
+        public boolean isClaimed() {
+            return recorded == null;
+        }
+    }
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Cache<String, IdempotentResponse> completed;
+    private final Cache<String, IdempotentResponse> claimedLocally;
+    private final long ttlMillis;
+    private final long leaseMillis;
+
+    public IdempotencyKeys(IdempotencyKeyRepository idempotencyKeyRepository,
+                           @Value("${ski.idempotency.ttl:24h}") Duration ttl,
+                           @Value("${ski.idempotency.cache-size:10000}") long cacheSize,
+                           @Value("${ski.idempotency.lease:30s}") Duration lease) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.leaseMillis = lease.toMillis();
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.claimedLocally = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(lease)
+                .build();
+    }
+
+    /**
+     * The key under which a client's {@code Idempotency-Key} is recorded: two clients sending the same
+     * key do not get each other's responses.
+     */
+    public static String scope(String client, String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((client + '\n' + key).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Claims the key for the request with this fingerprint: either the request is to be run, or the
+     * request already recorded under the key answers.
+     */
+    public Claim claim(String key, String fingerprint) {
+        IdempotentResponse cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return new Claim(cached, 0);
+        }
+        long now = System.currentTimeMillis();
+        try {
+            return new Claim(claim(key, fingerprint, now).orElse(null), now);
+        } catch (DataAccessException unavailable) {
+            log.warn("Idempotency key claimed locally, the database is unavailable: {}", unavailable.getMessage());
+            return new Claim(claimedLocally.asMap()
+                    .putIfAbsent(key, new IdempotentResponse(fingerprint, null, null, null, now)), now);
+        }
+    }
+
+    private Optional<IdempotentResponse> claim(String key, String fingerprint, long now) {
+        if (idempotencyKeyRepository.claim(key, fingerprint, now)) {
+            return Optional.empty();
+        }
+        Optional<IdempotentResponse> recorded = idempotencyKeyRepository.find(key);
+        if (recorded.isEmpty() || recorded.get().getCreatedAt() < now - ttlMillis) {
+            /* Released by a failed request in between, or expired but not purged yet */
+            recorded.ifPresent(expired -> idempotencyKeyRepository.delete(key, expired.getCreatedAt()));
+            return idempotencyKeyRepository.claim(key, fingerprint, now) ? Optional.empty() : idempotencyKeyRepository.find(key);
+        }
+        if (!recorded.get().isCompleted() && recorded.get().getCreatedAt() < now - leaseMillis
+                && idempotencyKeyRepository.takeOver(key, fingerprint, now - leaseMillis, now)) {
+            log.warn("Idempotency key claimed {} ms ago without a response, taken over", now - recorded.get().getCreatedAt());
+            return Optional.empty();
+        }
+        recorded.filter(IdempotentResponse::isCompleted).ifPresent(response -> completed.put(key, response));
+        return recorded;
+    }
+
+    /**
+     * Records the response of the request that made the claim; a retry reaching this node gets it even
+     * if the database could not record it, unless the claim was taken over in the meantime.
+     */
+    public void complete(String key, String fingerprint, Claim claim, int status, String contentType, byte[] body) {
+        forgetLocalClaim(key, fingerprint, claim);
+        IdempotentResponse response = new IdempotentResponse(fingerprint, status, contentType, body, System.currentTimeMillis());
+        try {
+            if (idempotencyKeyRepository.complete(key, fingerprint, claim.getClaimedAt(), status, contentType, body)) {
+                completed.put(key, response);
+            } else {
+                log.warn("Idempotency key taken over while its request ran, its response is not recorded");
+            }
+        } catch (DataAccessException unavailable) {
+            completed.put(key, response);
+            log.warn("Idempotent response not recorded, its claim expires after the lease: {}", unavailable.getMessage());
+        }
+    }
+
+    /** Forgets the claim of a request that failed, so that its retry runs again */
+    public void release(String key, String fingerprint, Claim claim) {
+        forgetLocalClaim(key, fingerprint, claim);
+        try {
+            idempotencyKeyRepository.release(key, fingerprint, claim.getClaimedAt());
+        } catch (DataAccessException unavailable) {
+            log.warn("Idempotency key not released, its claim expires after the lease: {}", unavailable.getMessage());
+        }
+    }
+
+    private void forgetLocalClaim(String key, String fingerprint, Claim claim) {
+        claimedLocally.asMap().computeIfPresent(key, (k, local) ->
+                local.getCreatedAt() == claim.getClaimedAt() && local.getFingerprint().equals(fingerprint) ? null : local);
+    }
+
+    @Scheduled(fixedDelayString = "${ski.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = idempotencyKeyRepository.deleteCreatedBefore(System.currentTimeMillis() - ttlMillis);
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.InstructorCourse;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.IInstructorRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Weeks in which each instructor teaches, per support, kept as a bitmap (bit {@code w} is week
+ * {@code w}, weeks 1-52 fit in a {@code long}).
+ * <p>
+ * The index is built at startup from the course assignments and the {@link CourseCapacityLedger},
+ * then kept up to date as registrations land on courses and courses are given to instructors. A new
+ * registration only sets a bit; moves and reassignments rebuild the affected schedule from the ledger.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InstructorScheduleIndex {
+
+    private final IInstructorRepository instructorRepository;
+    private final CourseCapacityLedger capacityLedger;
+
+    /* numCourse -> instructor and support the course is taught on */
+    private final ConcurrentMap<Long, ScheduleKey> courseOwners = new ConcurrentHashMap<>();
+    /* (numInstructor, support) -> weeks bitmap */
+    private final ConcurrentMap<ScheduleKey, Long> schedules = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void warmUp() {
+        for (InstructorCourse assignment : instructorRepository.findCourseAssignments()) {
+            ScheduleKey key = new ScheduleKey(assignment.getNumInstructor(), assignment.getSupport());
+            courseOwners.put(assignment.getNumCourse(), key);
+            schedules.merge(key, capacityLedger.weeksTaken(assignment.getNumCourse()), (a, b) -> a | b);
+        }
+        log.info("Instructor schedule index warmed for {} courses", courseOwners.size());
+    }
+
+    /**
+     * Sorted, distinct weeks in which the instructor teaches a course on this support.
+     */
+    public List<Integer> weeks(Long numInstructor, Support support) {
+        long bitmap = schedules.getOrDefault(new ScheduleKey(numInstructor, support), 0L);
+        List<Integer> weeks = new ArrayList<>(Long.bitCount(bitmap));
+        while (bitmap != 0) {
+            weeks.add(Long.numberOfTrailingZeros(bitmap));
+            bitmap &= bitmap - 1;
+        }
+        return weeks;
+    }
+
+    /** A registration was written for the course and week, after the ledger counted it. */
+    public void registered(Long numCourse, int numWeek) {
+        ScheduleKey key = courseOwners.get(numCourse);
+        if (key != null && CourseCapacityLedger.isValidWeek(numWeek)) {
+            schedules.merge(key, 1L << numWeek, (a, b) -> a | b);
+        }
+    }
+
+    /** A registration left the course, after the ledger released it. */
+    public void unregistered(Long numCourse) {
+        ScheduleKey key = courseOwners.get(numCourse);
+        if (key != null) {
+            rebuild(key);
+        }
+    }
+
+    /** The instructor now teaches exactly these courses. */
+    public void instructorCoursesChanged(Long numInstructor, Collection<Course> courses) {
+        Set<Long> taught = new HashSet<>();
+        Set<ScheduleKey> affected = new HashSet<>();
+        for (Course course : courses) {
+            if (course == null || course.getNumCourse() == null) {
+                continue;
+            }
+            taught.add(course.getNumCourse());
+            ScheduleKey key = new ScheduleKey(numInstructor, course.getSupport());
+            affected.add(key);
+            ScheduleKey previous = courseOwners.put(course.getNumCourse(), key);
+            if (previous != null) {
+                affected.add(previous);
+            }
+        }
+        courseOwners.entrySet().removeIf(owner -> owner.getValue().getNumInstructor().equals(numInstructor)
+                && !taught.contains(owner.getKey()) && affected.add(owner.getValue()));
+        affected.forEach(this::rebuild);
+    }
+
+    /** The course may have changed support. */
+    public void courseChanged(Course course) {
+        ScheduleKey key = courseOwners.get(course.getNumCourse());
+        if (key == null || key.getSupport() == course.getSupport()) {
+            return;
+        }
+        courseOwners.put(course.getNumCourse(), new ScheduleKey(key.getNumInstructor(), course.getSupport()));
+        rebuild(key);
+        rebuild(courseOwners.get(course.getNumCourse()));
+    }
+
+    /* The bitmap is recomputed inside compute() so a concurrent registered() is never lost */
+    private void rebuild(ScheduleKey key) {
+        schedules.compute(key, (k, bitmap) -> {
+            long weeks = 0L;
+            for (ConcurrentMap.Entry<Long, ScheduleKey> owner : courseOwners.entrySet()) {
+                if (owner.getValue().equals(k)) {
+                    weeks |= capacityLedger.weeksTaken(owner.getKey());
+                }
+            }
+            return weeks;
+        });
+    }
+
+    @Value
+    private static class ScheduleKey {
+        Long numInstructor;
+        Support support;
+    }
+}
@@ -2,14 +2,18 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.InstructorView;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IInstructorRepository;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
@@ -17,23 +21,34 @@ public class InstructorServicesImpl implements IInstructorServices{
 
     private IInstructorRepository instructorRepository;
     private ICourseRepository courseRepository;
+    private InstructorScheduleIndex scheduleIndex;
 
     @Override
     public Instructor addInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        return indexed(instructorRepository.save(instructor));
     }
 
     @Override
-    public List<Instructor> retrieveAllInstructors() {
-        return instructorRepository.findAll();
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
+    public List<InstructorView> retrieveAllInstructors(Long after, int limit) {
+        /* One query for the page of ids, one to fetch those instructors with their courses */
+        List<Long> ids = instructorRepository.findIdsAfter(KeysetPage.after(after), KeysetPage.limit(limit));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return instructorRepository.findWithCoursesByNumInstructorIn(ids).stream()
+                .map(InstructorView::of)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Instructor updateInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        return indexed(instructorRepository.save(instructor));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Instructor retrieveInstructor(Long numInstructor) {
         return instructorRepository.findById(numInstructor).orElse(null);
     }
@@ -44,7 +59,13 @@ public class InstructorServicesImpl implements IInstructorServices{
         Set<Course> courseSet = new HashSet<>();
         courseSet.add(course);
         instructor.setCourses(courseSet);
-        return instructorRepository.save(instructor);
+        return indexed(instructorRepository.save(instructor));
+    }
+
+    private Instructor indexed(Instructor saved) {
+        scheduleIndex.instructorCoursesChanged(saved.getNumInstructor(),
+                saved.getCourses() == null ? new HashSet<>() : saved.getCourses());
+        return saved;
     }
 
 
@@ -0,0 +1,26 @@
+package tn.esprit.spring.services;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Page size for cursor based listings: callers pass the last id they received
+ * ({@code after}) and the repository reads the next {@code limit} rows by primary key.
+ */
+public final class KeysetPage {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private KeysetPage() {
+    }
+
+    /* Always the first page: the offset is carried by the "after" cursor, never by OFFSET */
+    public static Pageable limit(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    public static Long after(Long after) {
+        return after == null ? 0L : after;
+    }
+}
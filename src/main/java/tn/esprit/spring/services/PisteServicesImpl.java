@@ -2,7 +2,10 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.PisteView;
 import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.repositories.ExcursionRepository;
 import tn.esprit.spring.repositories.IPisteRepository;
 
 import java.util.List;
@@ -11,24 +14,40 @@ import java.util.List;
 public class PisteServicesImpl implements  IPisteServices{
 
     private IPisteRepository pisteRepository;
+    private TableVersions tableVersions;
+    private ExcursionRepository excursionRepository;
 
     @Override
-    public List<Piste> retrieveAllPistes() {
-        return pisteRepository.findAll();
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
+    public List<PisteView> retrieveAllPistes(Long after, int limit) {
+        return pisteRepository.findPageAfter(KeysetPage.after(after), KeysetPage.limit(limit));
     }
 
     @Override
+    @Transactional
     public Piste addPiste(Piste piste) {
-        return pisteRepository.save(piste);
+        Piste saved = pisteRepository.save(piste);
+        tableVersions.changed(TableVersions.Table.PISTE);
+        return saved;
     }
 
     @Override
+    @Transactional
     public void removePiste(Long numPiste) {
         pisteRepository.deleteById(numPiste);
+        tableVersions.changed(TableVersions.Table.PISTE);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Piste retrievePiste(Long numPiste) {
         return pisteRepository.findById(numPiste).orElse(null);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long[] retrieveSkierIdsOnPiste(Long numPiste) {
+        return excursionRepository.findSkierIdsByPiste(numPiste);
+    }
 }
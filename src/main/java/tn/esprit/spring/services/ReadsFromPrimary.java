@@ -0,0 +1,19 @@
+package tn.esprit.spring.services;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Keeps the reads of a read-only service method on the primary when replicas are configured. For
+ * the methods behind a {@link tn.esprit.spring.controllers.VersionedResponse}, whose ETag comes from
+ * the {@code table_version} rows of the primary, and those filling the query cache: a lagging replica
+ * would serve stale data under a current version, then 304s until the next write.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadsFromPrimary {
+}
@@ -0,0 +1,92 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.TypeSubscriptionRevenue;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running sum of prices and count of subscriptions per {@link TypeSubscription}.
+ * <p>
+ * Seeded by one grouped query at startup, then kept up to date by every service that writes
+ * subscriptions, so the monthly recurring revenue is read in constant time without touching the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecurringRevenueAggregator {
+
+    private final ISubscriptionRepository subscriptionRepository;
+
+    private final Map<TypeSubscription, DoubleAdder> revenue = new EnumMap<>(TypeSubscription.class);
+    private final Map<TypeSubscription, LongAdder> subscriptions = new EnumMap<>(TypeSubscription.class);
+
+    {
+        for (TypeSubscription type : TypeSubscription.values()) {
+            revenue.put(type, new DoubleAdder());
+            subscriptions.put(type, new LongAdder());
+        }
+    }
+
+    @PostConstruct
+    public void seed() {
+        for (TypeSubscriptionRevenue row : subscriptionRepository.sumRevenueByTypeSub()) {
+            if (row.getTypeSub() == null) {
+                continue;
+            }
+            revenue.get(row.getTypeSub()).add(row.getRevenue() == null ? 0 : row.getRevenue());
+            subscriptions.get(row.getTypeSub()).add(row.getSubscriptions());
+        }
+        log.info("Recurring revenue seeded : {}", subscriptions);
+    }
+
+    public void add(Subscription subscription) {
+        apply(subscription, 1);
+    }
+
+    public void remove(Subscription subscription) {
+        apply(subscription, -1);
+    }
+
+    public void replace(TypeSubscription previousType, Float previousPrice, Subscription subscription) {
+        apply(previousType, previousPrice, -1);
+        add(subscription);
+    }
+
+    /**
+     * Average monthly price over all subscriptions: semester and annual prices are spread over 6 and 12 months.
+     */
+    public Float monthlyRecurringRevenue() {
+        return (float) (average(TypeSubscription.MONTHLY)
+                + average(TypeSubscription.SEMESTRIEL) / 6
+                + average(TypeSubscription.ANNUAL) / 12);
+    }
+
+    public double average(TypeSubscription type) {
+        long count = subscriptions.get(type).sum();
+        return count <= 0 ? 0 : revenue.get(type).sum() / count;
+    }
+
+    private void apply(Subscription subscription, int sign) {
+        if (subscription != null) {
+            apply(subscription.getTypeSub(), subscription.getPrice(), sign);
+        }
+    }
+
+    private void apply(TypeSubscription type, Float price, int sign) {
+        if (type == null) {
+            return;
+        }
+        revenue.get(type).add(sign * (price == null ? 0 : price));
+        subscriptions.get(type).add(sign);
+    }
+}
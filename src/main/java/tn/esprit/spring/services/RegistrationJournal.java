@@ -0,0 +1,200 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Local write-ahead journal of the registrations accepted while the database was unreachable, with
+ * {@code ski.registration.journal.enabled}: a memory-mapped file of fixed size records
+ * ({@code numSkier, numCourse, numWeek, journaledAt} and a CRC), appended to and never rewritten.
+ * <p>
+ * {@link #append} returns once the record is on disk. Appenders that arrive while another one forces
+ * the file wait for it and then force everything appended meanwhile at once, so the fsyncs are
+ * grouped under load. The {@link RegistrationJournalReplayer} applies the records; once all of them
+ * are, the file is cleared. On startup the records are read back up to the first one whose CRC does
+ * not match, a record torn by a crash included.
+ */
+@Slf4j
+@Component
+public class RegistrationJournal implements AutoCloseable {
+
+    static final int RECORD_SIZE = 32;
+    private static final int CRC_OFFSET = 28;
+
+    private final boolean enabled;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    /* Guarded by this: bytes appended, bytes on disk, bytes applied by the replayer */
+    private int appended;
+    private int durable;
+    private int replayed;
+
+    private final Object syncLock = new Object();
+
+    public RegistrationJournal(MeterRegistry meterRegistry,
+                               @Value("${ski.registration.journal.enabled:false}") boolean enabled,
+                               @Value("${ski.registration.journal.path:data/registrations.journal}") Path path,
+                               @Value("${ski.registration.journal.size:1MB}") DataSize size) {
+        this.enabled = enabled;
+        if (!enabled) {
+            channel = null;
+            buffer = null;
+            capacity = 0;
+            return;
+        }
+        capacity = (int) (size.toBytes() / RECORD_SIZE * RECORD_SIZE);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the registration journal " + path, e);
+        }
+        while (appended < capacity && valid(appended)) {
+            appended += RECORD_SIZE;
+        }
+        durable = appended;
+        if (appended > 0) {
+            log.warn("Registration journal {} holds {} registrations to replay", path, appended / RECORD_SIZE);
+        }
+        Gauge.builder("ski.registration.journal.pending", this, RegistrationJournal::pendingCount)
+                .description("Journaled registrations not applied to the database yet")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the registration and forces it to disk.
+     *
+     * @return {@code false} if the journal is full
+     */
+    public boolean append(long numSkier, long numCourse, int numWeek) {
+        int end;
+        synchronized (this) {
+            if (appended + RECORD_SIZE > capacity) {
+                return false;
+            }
+            write(appended, numSkier, numCourse, numWeek, System.currentTimeMillis());
+            appended += RECORD_SIZE;
+            end = appended;
+        }
+        synchronized (syncLock) {
+            int from;
+            int to;
+            synchronized (this) {
+                if (durable >= end) {
+                    return true;
+                }
+                from = durable;
+                to = appended;
+            }
+            buffer.force(from, to - from);
+            synchronized (this) {
+                durable = Math.max(durable, to);
+            }
+        }
+        return true;
+    }
+
+    /** The records on disk that were not applied yet, oldest first */
+    public synchronized List<Entry> pending() {
+        List<Entry> entries = new ArrayList<>();
+        for (int offset = replayed; offset < durable; offset += RECORD_SIZE) {
+            entries.add(new Entry(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getInt(offset + 24),
+                    buffer.getLong(offset + 16)));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks the first {@code count} pending records as applied; when no record is left the file is
+     * cleared.
+     */
+    public void replayed(int count) {
+        synchronized (syncLock) {
+            int cleared;
+            synchronized (this) {
+                replayed = Math.min(durable, replayed + count * RECORD_SIZE);
+                if (replayed < appended) {
+                    return;
+                }
+                cleared = appended;
+                for (int offset = 0; offset < cleared; offset += Long.BYTES) {
+                    buffer.putLong(offset, 0L);
+                }
+                appended = 0;
+                durable = 0;
+                replayed = 0;
+            }
+            buffer.force(0, cleared);
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return (durable - replayed) / RECORD_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            synchronized (syncLock) {
+                buffer.force();
+                channel.close();
+            }
+        }
+    }
+
+    private void write(int offset, long numSkier, long numCourse, int numWeek, long journaledAt) {
+        buffer.putLong(offset, numSkier);
+        buffer.putLong(offset + 8, numCourse);
+        buffer.putLong(offset + 16, journaledAt);
+        buffer.putInt(offset + 24, numWeek);
+        buffer.putInt(offset + CRC_OFFSET, crc(offset));
+    }
+
+    private boolean valid(int offset) {
+        return buffer.getLong(offset + 16) != 0 && buffer.getInt(offset + CRC_OFFSET) == crc(offset);
+    }
+
+    private int crc(int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Entry {
+        private final long numSkier;
+        private final long numCourse;
+        private final int numWeek;
+        private final long journaledAt;
+    }
+}
@@ -0,0 +1,76 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.Registration;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Writes the journaled registrations once the database is back, oldest first, each against the seat
+ * it holds in the {@link CourseCapacityLedger}; the outcome is counted and logged as usual. A record
+ * applied twice (a crash before the journal was cleared) is refused as a duplicate; a database still
+ * unreachable ends the run, the remaining records waiting for the next one.
+ * <p>
+ * The ledger is warmed from the database, which does not know the journaled registrations yet: their
+ * seats are taken again at startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegistrationJournalReplayer {
+
+    private final RegistrationJournal registrationJournal;
+    private final IRegistrationServices registrationServices;
+    private final CourseCapacityLedger capacityLedger;
+
+    @PostConstruct
+    void holdJournaledSeats() {
+        List<RegistrationJournal.Entry> pending = registrationJournal.pending();
+        for (RegistrationJournal.Entry entry : pending) {
+            capacityLedger.record(entry.getNumCourse(), entry.getNumWeek());
+        }
+        if (!pending.isEmpty()) {
+            log.info("Holding the seats of {} journaled registrations", pending.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ski.registration.journal.replay-interval:PT5S}")
+    public void scheduledReplay() {
+        if (registrationJournal.isEnabled()) {
+            replay();
+        }
+    }
+
+    /**
+     * @return the number of records applied
+     */
+    public synchronized int replay() {
+        List<RegistrationJournal.Entry> pending = registrationJournal.pending();
+        int applied = 0;
+        try {
+            for (RegistrationJournal.Entry entry : pending) {
+                try {
+                    Registration registration = registrationServices.replayRegistration(entry.getNumSkier(), entry.getNumCourse(), entry.getNumWeek());
+                    log.info("journaled registration replayed registration={} skier={} course={} week={}",
+                            registration == null ? null : registration.getNumRegistration(),
+                            entry.getNumSkier(), entry.getNumCourse(), entry.getNumWeek());
+                } catch (RuntimeException exception) {
+                    if (RegistrationServicesImpl.isWorthRetrying(exception)) {
+                        log.warn("Database still unreachable or busy, {} journaled registrations left: {}",
+                                pending.size() - applied, exception.getMessage());
+                        break;
+                    }
+                    log.error("Journaled registration {} could not be applied and is dropped", entry, exception);
+                }
+                applied++;
+            }
+        } finally {
+            registrationJournal.replayed(applied);
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,39 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.RegistrationStatus;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts registration attempts by outcome ({@code ski.registrations{outcome="accepted|full|..."}}),
+ * for the single and the batch registration alike.
+ */
+@Component
+public class RegistrationMetrics {
+
+    public static final String REGISTRATIONS = "ski.registrations";
+
+    private final Map<RegistrationStatus, Counter> outcomes = new EnumMap<>(RegistrationStatus.class);
+
+    public RegistrationMetrics(MeterRegistry meterRegistry) {
+        for (RegistrationStatus status : RegistrationStatus.values()) {
+            outcomes.put(status, Counter.builder(REGISTRATIONS)
+                    .description("Registration attempts by outcome")
+                    .tag("outcome", status.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(RegistrationStatus status) {
+        outcomes.get(status).increment();
+    }
+
+    public double recorded(RegistrationStatus status) {
+        return outcomes.get(status).count();
+    }
+}
@@ -2,24 +2,59 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.RegistrationExportRow;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationStatus;
+import tn.esprit.spring.dto.SkierCourseWeek;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
 
-import javax.transaction.Transactional;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 @Slf4j
 @AllArgsConstructor
 @Service
 public class RegistrationServicesImpl implements  IRegistrationServices{
 
+    /* Seats available in a collective course for a given week */
+    public static final int COLLECTIVE_COURSE_CAPACITY = 6;
+    /* Skiers of this age and older go to adult courses */
+    public static final int ADULT_AGE = 16;
+    /* The only integrity violation that means "already registered" */
+    private static final String DUPLICATE_CONSTRAINT = "uq_registration_skier_course_week";
+    /* SQLState class of the connection failures */
+    private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
     private IRegistrationRepository registrationRepository;
     private ISkierRepository skierRepository;
     private ICourseRepository courseRepository;
+    private CourseCapacityLedger capacityLedger;
+    private RegistrationMetrics registrationMetrics;
+    private InstructorScheduleIndex scheduleIndex;
+    private RegistrationJournal registrationJournal;
+    private CachedCourses cachedCourses;
 
 
     @Override
@@ -33,74 +68,312 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
     public Registration assignRegistrationToCourse(Long numRegistration, Long numCourse) {
         Registration registration = registrationRepository.findById(numRegistration).orElse(null);
         Course course = courseRepository.findById(numCourse).orElse(null);
+        Course previousCourse = registration.getCourse();
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        Registration saved = registrationRepository.save(registration);
+        if (previousCourse != null) {
+            capacityLedger.release(previousCourse.getNumCourse(), saved.getNumWeek());
+            scheduleIndex.unregistered(previousCourse.getNumCourse());
+        }
+        if (course != null) {
+            capacityLedger.record(course.getNumCourse(), saved.getNumWeek());
+            scheduleIndex.registered(course.getNumCourse(), saved.getNumWeek());
+        }
+        return saved;
     }
 
-    @Transactional
     @Override
     public Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours) {
+        return register(registration, numSkieur, numCours);
+    }
+
+    /* While the database is unreachable (a failover): the seat is held in the ledger, for the course as
+       the second-level cache has it, before the registration is journaled. The skier cannot be read, so
+       the age rule is not applied: the journaled registration keeps its seat until it is replayed */
+    @Override
+    public RegistrationResult journalRegistration(Registration registration, Long numSkier, Long numCourse) {
+        if (!registrationJournal.isEnabled()) {
+            return null;
+        }
+        int numWeek = registration.getNumWeek();
+        RegistrationStatus status;
+        if (!CourseCapacityLedger.isValidWeek(numWeek)) {
+            status = RegistrationStatus.INVALID_WEEK;
+        } else {
+            Course course;
+            try {
+                course = cachedCourses.find(numCourse).orElse(null);
+            } catch (RuntimeException notCached) {
+                log.warn("Course {} is not cached and the database is unreachable: registration not journaled", numCourse);
+                return null;
+            }
+            if (course == null) {
+                status = RegistrationStatus.UNKNOWN_COURSE;
+            } else if (!capacityLedger.tryReserve(numCourse, numWeek, capacity(course))) {
+                status = RegistrationStatus.FULL;
+            } else if (registrationJournal.append(numSkier, numCourse, numWeek)) {
+                status = RegistrationStatus.JOURNALED;
+            } else {
+                capacityLedger.release(numCourse, numWeek);
+                return null;
+            }
+        }
+        decided(status, numSkier, numCourse, numWeek);
+        return new RegistrationResult(numSkier, numCourse, numWeek, status, null);
+    }
+
+    /* The journaled registration already holds its seat: the row is written against it, without
+       running the admission again. The seat is handed back when the row cannot be written, except
+       while the database is unreachable or saturated, the record then staying in the journal */
+    @Override
+    public Registration replayRegistration(long numSkier, long numCourse, int numWeek) {
+        try {
+            Skier skier = skierRepository.findById(numSkier).orElse(null);
+            Course course = courseRepository.findById(numCourse).orElse(null);
+            if (skier == null || course == null) {
+                capacityLedger.release(numCourse, numWeek);
+                decided(skier == null ? RegistrationStatus.UNKNOWN_SKIER : RegistrationStatus.UNKNOWN_COURSE, numSkier, numCourse, numWeek);
+                return null;
+            }
+            Registration saved = assignRegistration(new Registration(null, numWeek, null, null), skier, course);
+            scheduleIndex.registered(numCourse, numWeek);
+            decided(RegistrationStatus.ACCEPTED, numSkier, numCourse, numWeek);
+            return saved;
+        } catch (DataIntegrityViolationException exception) {
+            capacityLedger.release(numCourse, numWeek);
+            if (!isDuplicateRegistration(exception)) {
+                throw exception;
+            }
+            decided(RegistrationStatus.DUPLICATE, numSkier, numCourse, numWeek);
+            return null;
+        } catch (RuntimeException exception) {
+            if (!isWorthRetrying(exception)) {
+                capacityLedger.release(numCourse, numWeek);
+            }
+            throw exception;
+        }
+    }
+
+    private static int capacity(Course course) {
+        return course.getTypeCourse() == TypeCourse.INDIVIDUAL ? Integer.MAX_VALUE : COLLECTIVE_COURSE_CAPACITY;
+    }
+
+    /**
+     * Whether the database cannot be reached: somewhere in the causes, a connection that could not
+     * be opened or was lost (SQLState class 08). A pool or permit timeout while it is merely busy is
+     * not an outage, unless the pool timed out on such a failure.
+     */
+    public static boolean isDatabaseUnavailable(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLException && ((SQLException) cause).getSQLState() != null
+                    && ((SQLException) cause).getSQLState().startsWith(CONNECTION_EXCEPTION_CLASS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether the same write may succeed later: the database is unreachable, or too busy to take it now */
+    public static boolean isWorthRetrying(RuntimeException exception) {
+        return isDatabaseUnavailable(exception)
+                || exception instanceof CannotCreateTransactionException
+                || exception instanceof TransientDataAccessException;
+    }
+
+    private Registration register(Registration registration, Long numSkieur, Long numCours) {
         Skier skier = skierRepository.findById(numSkieur).orElse(null);
         Course course = courseRepository.findById(numCours).orElse(null);
+        int numWeek = registration.getNumWeek();
 
         if (skier == null || course == null) {
+            decided(skier == null ? RegistrationStatus.UNKNOWN_SKIER : RegistrationStatus.UNKNOWN_COURSE, numSkieur, numCours, numWeek);
             return null;
         }
 
-        if(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(registration.getNumWeek(), skier.getNumSkier(), course.getNumCourse()) >=1){
-            log.info("Sorry, you're already register to this course of the week :" + registration.getNumWeek());
+        if (!CourseCapacityLedger.isValidWeek(numWeek)) {
+            decided(RegistrationStatus.INVALID_WEEK, numSkieur, numCours, numWeek);
             return null;
         }
 
         int ageSkieur = Period.between(skier.getDateOfBirth(), LocalDate.now()).getYears();
-        log.info("Age " + ageSkieur);
 
         switch (course.getTypeCourse()) {
             case INDIVIDUAL:
-                log.info("add without tests");
-                return assignRegistration(registration, skier, course);
+                return reserveAndAssignRegistration(registration, skier, course, Integer.MAX_VALUE);
 
             case COLLECTIVE_CHILDREN:
-                if (ageSkieur < 16) {
-                    log.info("Ok CHILD !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
-                }
-                else{
-                    log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Adult Course...");
+                if (ageSkieur < ADULT_AGE) {
+                    return reserveAndAssignRegistration(registration, skier, course, COLLECTIVE_COURSE_CAPACITY);
                 }
+                decided(RegistrationStatus.AGE_REJECTED, numSkieur, numCours, numWeek);
                 break;
 
             default:
-                if (ageSkieur >= 16) {
-                    log.info("Ok ADULT !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
-                        return assignRegistration(registration, skier, course);
-                    } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
-                    }
+                if (ageSkieur >= ADULT_AGE) {
+                    return reserveAndAssignRegistration(registration, skier, course, COLLECTIVE_COURSE_CAPACITY);
                 }
-                log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Child Course...");
+                decided(RegistrationStatus.AGE_REJECTED, numSkieur, numCours, numWeek);
         }
         return registration;
 
     }
+
+    @Override
+    public List<RegistrationResult> addRegistrationsInBatch(List<RegistrationRequest> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> numSkiers = requests.stream().map(RegistrationRequest::getNumSkier).collect(Collectors.toSet());
+        Set<Long> numCourses = requests.stream().map(RegistrationRequest::getNumCourse).collect(Collectors.toSet());
+
+        Map<Long, Skier> skiers = skierRepository.findAllWithSubscriptionByNumSkierIn(numSkiers).stream()
+                .collect(Collectors.toMap(Skier::getNumSkier, Function.identity()));
+        Map<Long, Course> courses = courseRepository.findAllById(numCourses).stream()
+                .collect(Collectors.toMap(Course::getNumCourse, Function.identity()));
+        Set<String> taken = new HashSet<>();
+        for (SkierCourseWeek existing : registrationRepository.findSkierCourseWeeks(numSkiers, numCourses)) {
+            taken.add(existing.getNumSkier() + ":" + existing.getNumCourse() + ":" + existing.getNumWeek());
+        }
+
+        LocalDate today = LocalDate.now();
+        List<RegistrationResult> results = new ArrayList<>(requests.size());
+        Map<RegistrationResult, Registration> accepted = new LinkedHashMap<>();
+        for (RegistrationRequest request : requests) {
+            Skier skier = skiers.get(request.getNumSkier());
+            Course course = courses.get(request.getNumCourse());
+            RegistrationStatus status = admit(request, skier, course, taken, today);
+            RegistrationResult result = new RegistrationResult(request.getNumSkier(), request.getNumCourse(),
+                    request.getNumWeek(), status, null);
+            if (status == RegistrationStatus.ACCEPTED) {
+                accepted.put(result, new Registration(null, request.getNumWeek(), skier, course));
+            }
+            results.add(result);
+        }
+
+        try {
+            registrationRepository.saveAll(accepted.values());
+        } catch (RuntimeException exception) {
+            accepted.values().forEach(r -> capacityLedger.release(r.getCourse().getNumCourse(), r.getNumWeek()));
+            throw exception;
+        }
+        accepted.forEach((result, registration) -> {
+            result.setNumRegistration(registration.getNumRegistration());
+            scheduleIndex.registered(registration.getCourse().getNumCourse(), registration.getNumWeek());
+        });
+        results.forEach(result -> registrationMetrics.record(result.getStatus()));
+        if (log.isDebugEnabled()) {
+            results.forEach(result -> log.debug("registration outcome={} skier={} course={} week={} batch=true",
+                    result.getStatus(), result.getNumSkier(), result.getNumCourse(), result.getNumWeek()));
+        }
+        log.info("registration batch accepted={} requested={}", accepted.size(), requests.size());
+        return results;
+    }
+
+    /* Same rules as the single registration; a seat is reserved when the entry is accepted */
+    private RegistrationStatus admit(RegistrationRequest request, Skier skier, Course course, Set<String> taken, LocalDate today) {
+        if (skier == null) {
+            return RegistrationStatus.UNKNOWN_SKIER;
+        }
+        if (course == null) {
+            return RegistrationStatus.UNKNOWN_COURSE;
+        }
+        if (!CourseCapacityLedger.isValidWeek(request.getNumWeek())) {
+            return RegistrationStatus.INVALID_WEEK;
+        }
+        if (!taken.add(skier.getNumSkier() + ":" + course.getNumCourse() + ":" + request.getNumWeek())) {
+            return RegistrationStatus.DUPLICATE;
+        }
+        int age = Period.between(skier.getDateOfBirth(), today).getYears();
+        int capacity = Integer.MAX_VALUE;
+        switch (course.getTypeCourse()) {
+            case INDIVIDUAL:
+                break;
+            case COLLECTIVE_CHILDREN:
+                if (age >= ADULT_AGE) {
+                    return RegistrationStatus.AGE_REJECTED;
+                }
+                capacity = COLLECTIVE_COURSE_CAPACITY;
+                break;
+            default:
+                if (age < ADULT_AGE) {
+                    return RegistrationStatus.AGE_REJECTED;
+                }
+                capacity = COLLECTIVE_COURSE_CAPACITY;
+        }
+        if (!capacityLedger.tryReserve(course.getNumCourse(), request.getNumWeek(), capacity)) {
+            return RegistrationStatus.FULL;
+        }
+        return RegistrationStatus.ACCEPTED;
+    }
+
+    /* The seat is held in the ledger before the insert, and handed back if the insert fails.
+       A second registration to the same course and week is refused by uq_registration_skier_course_week */
+    private Registration reserveAndAssignRegistration(Registration registration, Skier skier, Course course, int capacity) {
+        if (!capacityLedger.tryReserve(course.getNumCourse(), registration.getNumWeek(), capacity)) {
+            decided(RegistrationStatus.FULL, skier.getNumSkier(), course.getNumCourse(), registration.getNumWeek());
+            return null;
+        }
+        try {
+            Registration saved = assignRegistration(registration, skier, course);
+            scheduleIndex.registered(course.getNumCourse(), registration.getNumWeek());
+            decided(RegistrationStatus.ACCEPTED, skier.getNumSkier(), course.getNumCourse(), registration.getNumWeek());
+            return saved;
+        } catch (DataIntegrityViolationException exception) {
+            capacityLedger.release(course.getNumCourse(), registration.getNumWeek());
+            if (!isDuplicateRegistration(exception)) {
+                throw exception;
+            }
+            decided(RegistrationStatus.DUPLICATE, skier.getNumSkier(), course.getNumCourse(), registration.getNumWeek());
+            return null;
+        } catch (RuntimeException exception) {
+            capacityLedger.release(course.getNumCourse(), registration.getNumWeek());
+            throw exception;
+        }
+    }
+
+    /* Hibernate names the constraint when the dialect can parse it; otherwise the driver message
+       carries it (MySQL "for key 'registration.uq_...'", H2 "uq_..._INDEX_A") */
+    static boolean isDuplicateRegistration(DataIntegrityViolationException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            String name = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName() : cause.getMessage();
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(DUPLICATE_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* One counter increment and one key=value event per admission decision */
+    private void decided(RegistrationStatus status, Long numSkier, Long numCourse, int numWeek) {
+        registrationMetrics.record(status);
+        log.info("registration outcome={} skier={} course={} week={}", status, numSkier, numCourse, numWeek);
+    }
+
     private Registration assignRegistration (Registration registration, Skier skier, Course course){
         registration.setSkier(skier);
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        return registrationRepository.saveAndFlush(registration);
     }
 
     @Override
     public List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support) {
-        return registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support);
+        return scheduleIndex.weeks(numInstructor, support);
+    }
+
+    /* fromWeek > toWeek is a range across New Year, e.g. weeks 50 to 2 */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportRegistrations(int fromWeek, int toWeek, Consumer<RegistrationExportRow> consumer) {
+        if (!CourseCapacityLedger.isValidWeek(fromWeek) || !CourseCapacityLedger.isValidWeek(toWeek)) {
+            throw new IllegalArgumentException("Invalid week range " + fromWeek + "-" + toWeek);
+        }
+        try (Stream<RegistrationExportRow> rows = fromWeek <= toWeek
+                ? registrationRepository.streamForExport(fromWeek, toWeek)
+                : registrationRepository.streamForExportAcrossNewYear(fromWeek, toWeek)) {
+            rows.forEach(consumer);
+        }
     }
 
 }
@@ -0,0 +1,19 @@
+package tn.esprit.spring.services;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the service method again, after a short randomized backoff, when it loses an optimistic
+ * locking race ({@code ski.retry.*} properties). Only for methods that read what they modify in
+ * their own transaction, so that a new attempt applies the change to the fresh state; updates made
+ * from a copy sent by the client are not retried and come back as HTTP 409.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,207 @@
+package tn.esprit.spring.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports skiers with their subscription from CSV ({@value #HEADER}), reading one line at a time
+ * and committing every {@code ski.import.chunk-size} rows in their own transaction, as batched
+ * inserts (the ids come from the pooled table generators). The number of rows committed is saved
+ * with each chunk in {@code skier_import}: an import sent again with the same id skips them and
+ * resumes with the next row.
+ */
+@Slf4j
+@Component
+public class SkierCsvImporter {
+
+    public static final String HEADER = "firstName,lastName,dateOfBirth,city,typeSub,startDate,price";
+
+    private static final int COLUMNS = 7;
+
+    private final ISkierRepository skierRepository;
+    private final RecurringRevenueAggregator revenueAggregator;
+    private final TableVersions tableVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SkierCsvImporter(ISkierRepository skierRepository,
+                            RecurringRevenueAggregator revenueAggregator,
+                            TableVersions tableVersions,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${ski.import.chunk-size:1000}") int chunkSize) {
+        this.skierRepository = skierRepository;
+        this.revenueAggregator = revenueAggregator;
+        this.tableVersions = tableVersions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public SkierImportReport importSkiers(Reader csv, String importId) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader lines = csv instanceof BufferedReader ? (BufferedReader) csv : new BufferedReader(csv);
+        String header = lines.readLine();
+        if (header == null || !HEADER.equalsIgnoreCase(header.replace("\uFEFF", "").replace(" ", ""))) {
+            throw new SkierImportException(importId, "line 1: expected the header " + HEADER, null);
+        }
+
+        long committed = checkpoint(importId);
+        long resumedAfter = committed;
+        int lineNumber = 1;
+        for (long skipped = 0; skipped < resumedAfter; skipped++) {
+            String line;
+            do {
+                line = lines.readLine();
+                lineNumber++;
+            } while (line != null && line.trim().isEmpty());
+            if (line == null) {
+                throw new SkierImportException(importId, "already committed " + resumedAfter
+                        + " rows, the file has fewer", null);
+            }
+        }
+
+        List<Skier> chunk = new ArrayList<>(chunkSize);
+        int chunks = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                chunk.add(parse(line, lineNumber));
+            } catch (IllegalArgumentException e) {
+                throw new SkierImportException(importId, e.getMessage(), e);
+            }
+            if (chunk.size() == chunkSize) {
+                committed = commit(importId, chunk, committed);
+                chunks++;
+                log.info("import={} committed={} rows/s={}", importId, committed,
+                        String.format(Locale.ROOT, "%.0f", rate(committed - resumedAfter, started)));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            committed = commit(importId, chunk, committed);
+            chunks++;
+        }
+
+        long imported = committed - resumedAfter;
+        SkierImportReport report = new SkierImportReport(importId, resumedAfter, imported, chunks,
+                (System.nanoTime() - started) / 1_000_000, rate(imported, started));
+        log.info("import={} done resumedAfter={} imported={} chunks={} rows/s={}", importId, resumedAfter,
+                imported, chunks, String.format(Locale.ROOT, "%.0f", report.getRowsPerSecond()));
+        return report;
+    }
+
+    /* Rows already committed by this import, registering it when it is new */
+    private long checkpoint(String importId) {
+        List<Long> committed = jdbcTemplate.queryForList(
+                "select rows_committed from skier_import where import_id = ?", Long.class, importId);
+        if (!committed.isEmpty()) {
+            return committed.get(0);
+        }
+        jdbcTemplate.update("insert into skier_import (import_id, rows_committed, updated_at) values (?, 0, ?)",
+                importId, new Timestamp(System.currentTimeMillis()));
+        return 0;
+    }
+
+    private long commit(String importId, List<Skier> chunk, long committed) {
+        long total = committed + chunk.size();
+        transactionTemplate.executeWithoutResult(status -> {
+            /* Fails when another run of the same import committed in the meantime */
+            int advanced = jdbcTemplate.update(
+                    "update skier_import set rows_committed = ?, updated_at = ? where import_id = ? and rows_committed = ?",
+                    total, new Timestamp(System.currentTimeMillis()), importId, committed);
+            if (advanced != 1) {
+                throw new OptimisticLockingFailureException("import " + importId + " is running elsewhere");
+            }
+            skierRepository.saveAll(chunk);
+            tableVersions.changed(TableVersions.Table.SUBSCRIPTION);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        for (Skier skier : chunk) {
+            revenueAggregator.add(skier.getSubscription());
+        }
+        return total;
+    }
+
+    private static Skier parse(String line, int lineNumber) {
+        List<String> fields = fields(line);
+        if (fields.size() != COLUMNS) {
+            throw new IllegalArgumentException("line " + lineNumber + ": expected " + COLUMNS + " columns, got " + fields.size());
+        }
+        try {
+            TypeSubscription type = TypeSubscription.valueOf(fields.get(4).toUpperCase(Locale.ROOT));
+            LocalDate startDate = LocalDate.parse(fields.get(5));
+            Subscription subscription = new Subscription(null, startDate, type.endDate(startDate),
+                    Float.parseFloat(fields.get(6)), type, 0);
+            return new Skier(null, fields.get(0), fields.get(1), LocalDate.parse(fields.get(2)), fields.get(3),
+                    subscription, null, null, 0);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /* Comma separated values, a value in double quotes may hold commas and "" for a quote */
+    static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static double rate(long rows, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        return seconds > 0 ? rows / seconds : 0;
+    }
+}
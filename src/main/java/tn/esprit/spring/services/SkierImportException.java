@@ -0,0 +1,18 @@
+package tn.esprit.spring.services;
+
+import lombok.Getter;
+
+/**
+ * A skier import stopped on a bad file. The rows of the chunks committed before it stay imported:
+ * sending the corrected file again with the same {@code importId} resumes after them.
+ */
+@Getter
+public class SkierImportException extends RuntimeException {
+
+    private final String importId;
+
+    public SkierImportException(String importId, String message, Throwable cause) {
+        super("import " + importId + ": " + message, cause);
+        this.importId = importId;
+    }
+}
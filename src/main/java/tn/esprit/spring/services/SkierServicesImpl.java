@@ -2,12 +2,19 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.dto.SkierView;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
@@ -15,7 +22,7 @@ public class SkierServicesImpl implements ISkierServices {
 
     private ISkierRepository skierRepository;
 
-    private IPisteRepository pisteRepository;
+    private ExcursionRepository excursionRepository;
 
     private ICourseRepository courseRepository;
 
@@ -23,29 +30,47 @@ public class SkierServicesImpl implements ISkierServices {
 
     private ISubscriptionRepository subscriptionRepository;
 
+    private CourseCapacityLedger capacityLedger;
+
+    private RecurringRevenueAggregator revenueAggregator;
+
+    private InstructorScheduleIndex scheduleIndex;
+
+    private TableVersions tableVersions;
+
+    private SkierCsvImporter csvImporter;
+
+    private ExcursionWriteBehind excursionWriteBehind;
+
 
     @Override
-    public List<Skier> retrieveAllSkiers() {
-        return skierRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<SkierView> retrieveAllSkiers(Long after, int limit) {
+        return skierRepository.findPageAfter(KeysetPage.after(after), KeysetPage.limit(limit));
     }
 
     @Override
-    public Skier addSkier(Skier skier) {
-        switch (skier.getSubscription().getTypeSub()) {
-            case ANNUAL:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusYears(1));
-                break;
-            case SEMESTRIEL:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(6));
-                break;
-            case MONTHLY:
-                skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(1));
-                break;
+    @Transactional(readOnly = true)
+    public void streamAllSkiers(Consumer<SkierView> consumer) {
+        try (Stream<SkierView> skiers = skierRepository.streamAllBy()) {
+            skiers.forEach(consumer);
         }
-        return skierRepository.save(skier);
     }
 
     @Override
+    @Transactional
+    public Skier addSkier(Skier skier) {
+        Subscription subscription = skier.getSubscription();
+        subscription.setEndDate(subscription.getTypeSub().endDate(subscription.getStartDate()));
+        Skier saved = skierRepository.save(skier);
+        AfterCommit.run(() -> revenueAggregator.add(saved.getSubscription()));
+        tableVersions.changed(TableVersions.Table.SUBSCRIPTION);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
     public Skier assignSkierToSubscription(Long numSkier, Long numSubscription) {
         Skier skier = skierRepository.findById(numSkier).orElse(null);
         Subscription subscription = subscriptionRepository.findById(numSubscription).orElse(null);
@@ -54,45 +79,74 @@ public class SkierServicesImpl implements ISkierServices {
     }
 
     @Override
+    @Transactional
     public Skier addSkierAndAssignToCourse(Skier skier, Long numCourse) {
         Skier savedSkier = skierRepository.save(skier);
+        AfterCommit.run(() -> revenueAggregator.add(savedSkier.getSubscription()));
+        tableVersions.changed(TableVersions.Table.SUBSCRIPTION);
         Course course = courseRepository.getById(numCourse);
         Set<Registration> registrations = savedSkier.getRegistrations();
         for (Registration r : registrations) {
             r.setSkier(savedSkier);
             r.setCourse(course);
             registrationRepository.save(r);
+            int numWeek = r.getNumWeek();
+            AfterCommit.run(() -> {
+                capacityLedger.record(numCourse, numWeek);
+                scheduleIndex.registered(numCourse, numWeek);
+            });
         }
         return savedSkier;
     }
 
     @Override
+    @Transactional
     public void removeSkier(Long numSkier) {
-        skierRepository.deleteById(numSkier);
+        Skier skier = skierRepository.findById(numSkier).orElse(null);
+        if (skier == null) {
+            skierRepository.deleteById(numSkier);
+            return;
+        }
+        Subscription subscription = skier.getSubscription();
+        skierRepository.delete(skier);
+        /* the subscription is removed with the skier */
+        AfterCommit.run(() -> revenueAggregator.remove(subscription));
+        tableVersions.changed(TableVersions.Table.SUBSCRIPTION);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Skier retrieveSkier(Long numSkier) {
         return skierRepository.findById(numSkier).orElse(null);
     }
 
+    /* Transactional for its commit to keep the client's next reads on the primary, like any other write */
     @Override
-    public Skier assignSkierToPiste(Long numSkieur, Long numPiste) {
-        Skier skier = skierRepository.findById(numSkieur).orElse(null);
-        Piste piste = pisteRepository.findById(numPiste).orElse(null);
-        try {
-            skier.getPistes().add(piste);
-        } catch (NullPointerException exception) {
-            Set<Piste> pisteList = new HashSet<>();
-            pisteList.add(piste);
-            skier.setPistes(pisteList);
-        }
+    @Transactional
+    public void assignSkierToPiste(Long numSkieur, Long numPiste) {
+        /* One insert into the join table, neither the skier nor its pistes are loaded */
+        excursionRepository.add(numSkieur, numPiste);
+    }
 
-        return skierRepository.save(skier);
+    @Override
+    public boolean queueSkierToPiste(Long numSkier, Long numPiste) {
+        return excursionWriteBehind.offer(numSkier, numPiste);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long[] retrievePisteIdsOfSkier(Long numSkier) {
+        return excursionRepository.findPisteIdsBySkier(numSkier);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SkierView> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierRepository.findViewsBySubscriptionType(typeSubscription);
     }
 
     @Override
-    public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
-        return skierRepository.findBySubscription_TypeSub(typeSubscription);
+    public SkierImportReport importSkiers(Reader csv, String importId) throws IOException {
+        return csvImporter.importSkiers(csv, importId);
     }
 }
@@ -0,0 +1,67 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduled subscription reports. Cron expressions come from the configuration
+ * ({@code ski.jobs.*.cron}); a run that starts while the previous run of the same job is still going
+ * is skipped, and every run is timed as {@code ski.jobs{job, outcome}}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubscriptionJobs {
+
+    public static final String EXPIRED_SUBSCRIPTIONS = "expired-subscriptions";
+    public static final String MONTHLY_REVENUE = "monthly-revenue";
+
+    private final ISubscriptionServices subscriptionServices;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    @Scheduled(cron = "${ski.jobs.expired-subscriptions.cron:*/30 * * * * *}")
+    public void reportExpiredSubscriptions() {
+        run(EXPIRED_SUBSCRIPTIONS, subscriptionServices::retrieveSubscriptions);
+    }
+
+    @Scheduled(cron = "${ski.jobs.monthly-revenue.cron:*/30 * * * * *}")
+    public void reportMonthlyRecurringRevenue() {
+        run(MONTHLY_REVENUE, subscriptionServices::showMonthlyRecurringRevenue);
+    }
+
+    /**
+     * @return {@code false} if the job was skipped because it is still running
+     */
+    public boolean run(String job, Runnable task) {
+        AtomicBoolean jobRunning = running.computeIfAbsent(job, name -> new AtomicBoolean());
+        if (!jobRunning.compareAndSet(false, true)) {
+            Counter.builder("ski.jobs.skipped").tag("job", job).register(meterRegistry).increment();
+            log.warn("job={} skipped, the previous run is still in progress", job);
+            return false;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            task.run();
+        } catch (RuntimeException exception) {
+            outcome = "failure";
+            log.error("job={} failed", job, exception);
+        } finally {
+            sample.stop(Timer.builder("ski.jobs").description("Scheduled job runs").tag("job", job)
+                    .tag("outcome", outcome).register(meterRegistry));
+            jobRunning.set(false);
+        }
+        return true;
+    }
+}
@@ -2,13 +2,13 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import tn.esprit.spring.entities.Skier;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.ExpiredSubscriptionView;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
-import tn.esprit.spring.repositories.ISkierRepository;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
+import tn.esprit.spring.repositories.ExpiredSubscriptionRepository;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,62 +19,98 @@ import java.util.Set;
 @Service
 public class SubscriptionServicesImpl implements ISubscriptionServices{
 
+    /* Expired subscriptions are reported EXPIRED_CHUNK rows at a time */
+    private static final int EXPIRED_CHUNK = 500;
+    private static final ExpiredSubscriptionView NOTHING_REPORTED = new ExpiredSubscriptionView(0L, LocalDate.of(1970, 1, 1), null, null);
+
     private ISubscriptionRepository subscriptionRepository;
 
-    private ISkierRepository skierRepository;
+    private RecurringRevenueAggregator revenueAggregator;
+
+    private TableVersions tableVersions;
+
+    /* Expired subscriptions are flagged once reported: each run, after a restart too, reports the
+       unflagged ones, including those written late with an end date already behind */
+    private ExpiredSubscriptionRepository expiredSubscriptionRepository;
 
     @Override
+    @Transactional
     public Subscription addSubscription(Subscription subscription) {
-        switch (subscription.getTypeSub()) {
-            case ANNUAL:
-                subscription.setEndDate(subscription.getStartDate().plusYears(1));
-                break;
-            case SEMESTRIEL:
-                subscription.setEndDate(subscription.getStartDate().plusMonths(6));
-                break;
-            case MONTHLY:
-                subscription.setEndDate(subscription.getStartDate().plusMonths(1));
-                break;
-        }
-        return subscriptionRepository.save(subscription);
+        subscription.setEndDate(subscription.getTypeSub().endDate(subscription.getStartDate()));
+        Subscription saved = subscriptionRepository.save(subscription);
+        AfterCommit.run(() -> revenueAggregator.add(saved));
+        tableVersions.changed(TableVersions.Table.SUBSCRIPTION);
+        return saved;
     }
 
+    /* The previous type and price are read in the transaction that replaces them: the version check
+       of the save fails if another update landed in between, and the revenue moves once it commits */
     @Override
+    @Transactional
     public Subscription updateSubscription(Subscription subscription) {
-        return subscriptionRepository.save(subscription);
+        Subscription previous = subscription.getNumSub() == null ? null
+                : subscriptionRepository.findById(subscription.getNumSub()).orElse(null);
+        TypeSubscription previousType = previous == null ? null : previous.getTypeSub();
+        Float previousPrice = previous == null ? null : previous.getPrice();
+        LocalDate previousEndDate = previous == null ? null : previous.getEndDate();
+        Subscription saved = subscriptionRepository.save(subscription);
+        if (previousEndDate != null && !previousEndDate.equals(saved.getEndDate())) {
+            expiredSubscriptionRepository.forgetReported(saved.getNumSub());
+        }
+        if (previous == null) {
+            AfterCommit.run(() -> revenueAggregator.add(saved));
+        } else {
+            AfterCommit.run(() -> revenueAggregator.replace(previousType, previousPrice, saved));
+        }
+        tableVersions.changed(TableVersions.Table.SUBSCRIPTION);
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
     public Subscription retrieveSubscriptionById(Long numSubscription) {
         return subscriptionRepository.findById(numSubscription).orElse(null);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReadsFromPrimary
     public Set<Subscription> getSubscriptionByType(TypeSubscription type) {
         return subscriptionRepository.findByTypeSubOrderByStartDateAsc(type);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate) {
         return subscriptionRepository.getSubscriptionsByStartDateBetween(startDate, endDate);
     }
 
+    /* Not read-only: each chunk is flagged on the primary once reported */
     @Override
-    @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
     public void retrieveSubscriptions() {
-        for (Subscription sub: subscriptionRepository.findDistinctOrderByEndDateAsc()) {
-            Skier   aSkier = skierRepository.findBySubscription(sub);
-            log.info(sub.getNumSub().toString() + " | "+ sub.getEndDate().toString()
-                    + " | "+ aSkier.getFirstName() + " " + aSkier.getLastName());
-        }
+        LocalDate today = LocalDate.now();
+        ExpiredSubscriptionView last = NOTHING_REPORTED;
+        List<ExpiredSubscriptionView> chunk;
+        do {
+            chunk = expiredSubscriptionRepository.findUnreported(last.getEndDate(), last.getNumSub(), today, EXPIRED_CHUNK);
+            for (ExpiredSubscriptionView sub : chunk) {
+                log.info("{} | {} | {} {}", sub.getNumSub(), sub.getEndDate(), sub.getFirstName(), sub.getLastName());
+                last = sub;
+            }
+            if (!chunk.isEmpty()) {
+                expiredSubscriptionRepository.markReported(chunk);
+            }
+        } while (chunk.size() == EXPIRED_CHUNK);
     }
 
-   // @Scheduled(cron = "* 0 9 1 * *") /* Cron expression to run a job every month at 9am */
-    @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
+    @Override
     public void showMonthlyRecurringRevenue() {
-        Float revenue = subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY)
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL)/6
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL)/12;
-        log.info("Monthly Revenue = " + revenue);
+        log.info("Monthly Revenue = {}", retrieveMonthlyRecurringRevenue());
+    }
+
+    @Override
+    public Float retrieveMonthlyRecurringRevenue() {
+        return revenueAggregator.monthlyRecurringRevenue();
     }
 }
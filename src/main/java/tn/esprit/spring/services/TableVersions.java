@@ -0,0 +1,94 @@
+package tn.esprit.spring.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.repositories.TableVersionRepository;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A change counter per table, bumped by the service implementations in the transaction of each
+ * write, from which the ETags of the cached responses are built.
+ * <p>
+ * The counters are rows of {@code table_version}, so every instance builds the same ETags: a write
+ * made inside a transaction bumps its row in that transaction, and a client polling another instance
+ * sees the new ETag once the write commits. Reads go through a snapshot kept for
+ * {@code ski.http.version-cache}, dropped as soon as this instance commits a write; another instance's
+ * write is seen at most that long after it commits.
+ */
+@Component
+public class TableVersions {
+
+    public enum Table { COURSE, PISTE, SUBSCRIPTION }
+
+    private final TableVersionRepository tableVersionRepository;
+    private final long maxAgeNanos;
+
+    private volatile Snapshot snapshot;
+
+    public TableVersions(TableVersionRepository tableVersionRepository,
+                         @Value("${ski.http.version-cache:1s}") Duration maxAge) {
+        this.tableVersionRepository = tableVersionRepository;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    public void changed(Table table) {
+        tableVersionRepository.bump(table.name());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            snapshot = null;
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                snapshot = null;
+            }
+        });
+    }
+
+    public long version(Table table) {
+        return versions().get(table);
+    }
+
+    /** Strong ETag of a response built from these tables only. */
+    public String etag(Table... tables) {
+        Map<Table, Long> versions = versions();
+        StringBuilder etag = new StringBuilder("\"");
+        for (Table table : tables) {
+            if (etag.length() > 1) {
+                etag.append('-');
+            }
+            etag.append(table.name().toLowerCase()).append(versions.get(table));
+        }
+        return etag.append('"').toString();
+    }
+
+    private Map<Table, Long> versions() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current == null || now - current.readAt > maxAgeNanos) {
+            Map<String, Long> rows = tableVersionRepository.findAll();
+            Map<Table, Long> versions = new EnumMap<>(Table.class);
+            for (Table table : Table.values()) {
+                versions.put(table, rows.getOrDefault(table.name(), 0L));
+            }
+            current = new Snapshot(versions, now);
+            snapshot = current;
+        }
+        return current.versions;
+    }
+
+    private static final class Snapshot {
+        private final Map<Table, Long> versions;
+        private final long readAt;
+
+        private Snapshot(Map<Table, Long> versions, long readAt) {
+            this.versions = versions;
+            this.readAt = readAt;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- Change counters behind the ETags, shared by every instance and bumped in the write transaction
+create table table_version (
+    table_name varchar(32) not null,
+    version bigint not null,
+    primary key (table_name)
+);
+
+insert into table_version (table_name, version) values ('COURSE', 0), ('PISTE', 0), ('SUBSCRIPTION', 0);
@@ -0,0 +1,8 @@
+-- Each expired subscription is flagged once reported, instead of a (date, id) mark in job_state: ids
+-- come from pooled blocks and rows can be written with an end date behind the mark, so a mark misses them
+alter table subscription add column expiry_reported boolean not null default false;
+
+-- ExpiredSubscriptionRepository.findUnreported
+create index idx_subscription_expiry_reported on subscription (expiry_reported, end_date, num_sub);
+
+drop table job_state;
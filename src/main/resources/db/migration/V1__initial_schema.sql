@@ -0,0 +1,77 @@
+-- Schema as generated by hibernate.ddl-auto=update before migrations were introduced.
+-- Databases created that way are baselined at version 1 and start from V2.
+
+create table course (
+    num_course bigint not null auto_increment,
+    level integer not null,
+    price float,
+    support varchar(255),
+    time_slot integer not null,
+    type_course varchar(255),
+    primary key (num_course)
+);
+
+create table piste (
+    num_piste bigint not null auto_increment,
+    color varchar(255),
+    length integer not null,
+    name_piste varchar(255),
+    slope integer not null,
+    primary key (num_piste)
+);
+
+create table instructor (
+    num_instructor bigint not null auto_increment,
+    date_of_hire date,
+    first_name varchar(255),
+    last_name varchar(255),
+    primary key (num_instructor)
+);
+
+create table instructor_courses (
+    instructor_num_instructor bigint not null,
+    courses_num_course bigint not null,
+    primary key (instructor_num_instructor, courses_num_course)
+);
+
+create table subscription (
+    num_sub bigint not null auto_increment,
+    end_date date,
+    price float,
+    start_date date,
+    type_sub integer,
+    primary key (num_sub)
+);
+
+create table skier (
+    num_skier bigint not null auto_increment,
+    city varchar(255),
+    date_of_birth date,
+    first_name varchar(255),
+    last_name varchar(255),
+    subscription_num_sub bigint,
+    primary key (num_skier)
+);
+
+create table excursion (
+    num_skier bigint not null,
+    num_piste bigint not null,
+    primary key (num_skier, num_piste)
+);
+
+create table registration (
+    num_registration bigint not null auto_increment,
+    num_week integer not null,
+    course_num_course bigint,
+    skier_num_skier bigint,
+    primary key (num_registration)
+);
+
+alter table instructor_courses add constraint uk_instructor_courses_course unique (courses_num_course);
+alter table instructor_courses add constraint fk_instructor_courses_course foreign key (courses_num_course) references course (num_course);
+alter table instructor_courses add constraint fk_instructor_courses_instructor foreign key (instructor_num_instructor) references instructor (num_instructor);
+alter table skier add constraint fk_skier_subscription foreign key (subscription_num_sub) references subscription (num_sub);
+alter table excursion add constraint fk_excursion_piste foreign key (num_piste) references piste (num_piste);
+alter table excursion add constraint fk_excursion_skier foreign key (num_skier) references skier (num_skier);
+alter table registration add constraint fk_registration_course foreign key (course_num_course) references course (num_course);
+alter table registration add constraint fk_registration_skier foreign key (skier_num_skier) references skier (num_skier);
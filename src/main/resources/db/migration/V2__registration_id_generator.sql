@@ -0,0 +1,13 @@
+-- Registration ids come from a pooled table generator (allocation 50) so inserts can be batched.
+-- The pooled optimizer hands out (next_val - 50, next_val], hence the seed above the current max id.
+
+create table if not exists id_generator (
+    sequence_name varchar(255) not null,
+    next_val bigint,
+    primary key (sequence_name)
+);
+
+delete from id_generator where sequence_name = 'registration';
+
+insert into id_generator (sequence_name, next_val)
+select 'registration', coalesce(max(num_registration), 0) + 50 from registration;
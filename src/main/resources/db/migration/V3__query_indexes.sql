@@ -0,0 +1,29 @@
+-- Indexes for the predicates of the repository queries.
+
+-- A skier registers once per course and week: enforced here instead of by a COUNT before each insert.
+-- Rows that already break the rule are removed first, keeping the oldest registration.
+delete from registration
+where skier_num_skier is not null
+  and course_num_course is not null
+  and num_registration not in (
+    select keep_id from (
+        select min(num_registration) as keep_id
+        from registration
+        where skier_num_skier is not null and course_num_course is not null
+        group by skier_num_skier, course_num_course, num_week
+    ) kept
+);
+
+-- Also serves IRegistrationRepository.findSkierCourseWeeks (skier in ...)
+alter table registration add constraint uq_registration_skier_course_week
+    unique (skier_num_skier, course_num_course, num_week);
+
+-- IRegistrationRepository.countByCourseAndNumWeek and the capacity ledger warm-up
+create index idx_registration_course_week on registration (course_num_course, num_week);
+
+-- ISubscriptionRepository.findByTypeSubOrderByStartDateAsc, sumRevenueByTypeSub and
+-- ISkierRepository.findBySubscription_TypeSub (skier -> subscription goes through fk_skier_subscription)
+create index idx_subscription_type_start on subscription (type_sub, start_date);
+
+-- ISubscriptionRepository.findExpiredAfter: keyset on (end_date, num_sub)
+create index idx_subscription_end_date on subscription (end_date, num_sub);
@@ -0,0 +1,7 @@
+-- Version columns for optimistic locking: an update made from a stale copy of the row fails
+-- instead of overwriting a concurrent change.
+
+alter table course add column version bigint not null default 0;
+alter table instructor add column version bigint not null default 0;
+alter table skier add column version bigint not null default 0;
+alter table subscription add column version bigint not null default 0;
@@ -0,0 +1,19 @@
+-- Skier and subscription ids come from the pooled table generator too, so the CSV import can batch
+-- its inserts (IDENTITY ids are fetched one insert at a time).
+
+delete from id_generator where sequence_name in ('skier', 'subscription');
+
+insert into id_generator (sequence_name, next_val)
+select 'skier', coalesce(max(num_skier), 0) + 50 from skier;
+
+insert into id_generator (sequence_name, next_val)
+select 'subscription', coalesce(max(num_sub), 0) + 50 from subscription;
+
+-- Progress of each CSV import, updated in the transaction of every chunk it commits: an import sent
+-- again with the same id resumes after its last committed row.
+create table skier_import (
+    import_id varchar(255) not null,
+    rows_committed bigint not null,
+    updated_at timestamp not null,
+    primary key (import_id)
+);
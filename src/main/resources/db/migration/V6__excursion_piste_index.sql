@@ -0,0 +1,3 @@
+-- "Skiers on a piste" reads the excursions by piste: the primary key (num_skier, num_piste) only
+-- serves the lookups by skier.
+create index idx_excursion_piste_skier on excursion (num_piste, num_skier);
@@ -0,0 +1,8 @@
+-- Written on the primary and read back on each replica to measure how far behind it is
+create table replication_heartbeat (
+    id int not null,
+    beat_millis bigint not null,
+    primary key (id)
+);
+
+insert into replication_heartbeat (id, beat_millis) values (1, 0);
@@ -0,0 +1,13 @@
+-- Responses of the mutating requests sent with an Idempotency-Key header, replayed to their retries;
+-- status is null while the first request is still running
+create table idempotency_key (
+    idempotency_key varchar(255) not null,
+    fingerprint char(64) not null,
+    status int,
+    content_type varchar(255),
+    body longblob,
+    created_at bigint not null,
+    primary key (idempotency_key)
+);
+
+create index idx_idempotency_key_created on idempotency_key (created_at);
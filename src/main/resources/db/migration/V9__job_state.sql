@@ -0,0 +1,7 @@
+-- Where each incremental job stopped, so that a restart carries on instead of starting over
+create table job_state (
+    job varchar(64) not null,
+    mark_date date not null,
+    mark_id bigint not null,
+    primary key (job)
+);
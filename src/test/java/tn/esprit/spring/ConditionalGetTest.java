@@ -0,0 +1,104 @@
+package tn.esprit.spring;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.TableVersionRepository;
+import tn.esprit.spring.services.ICourseServices;
+import tn.esprit.spring.services.TableVersions;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"ski.http.cache-control.courses=max-age=5", "ski.http.version-cache=100ms"})
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ICourseServices courseServices;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        courseServices.addCourse(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0));
+    }
+
+    @Test
+    void matchingIfNoneMatch_isAnswered304WithoutQuery() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/course/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+
+        // Act & Assert
+        mockMvc.perform(get("/course/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void write_changesTheEtag() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/course/all"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act
+        courseServices.addCourse(new Course(null, 2, TypeCourse.INDIVIDUAL, Support.SNOWBOARD, 90f, 1, null, 0));
+
+        // Assert
+        String refreshed = mockMvc.perform(get("/course/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(refreshed);
+        assertNotEquals(etag, refreshed);
+        mockMvc.perform(get("/piste/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    void writeOnAnotherInstance_changesTheEtag() throws Exception {
+        // Arrange: a second instance sharing the database
+        TableVersions otherInstance = new TableVersions(new TableVersionRepository(jdbcTemplate), Duration.ZERO);
+        String etag = mockMvc.perform(get("/course/all"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act
+        otherInstance.changed(TableVersions.Table.COURSE);
+
+        // Assert
+        assertNotEquals(etag, otherInstance.etag(TableVersions.Table.COURSE));
+        Thread.sleep(200);
+        mockMvc.perform(get("/course/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,94 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.services.CourseCapacityLedger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseCapacityLedgerTest {
+
+    @InjectMocks
+    private CourseCapacityLedger capacityLedger;
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Test
+    void tryReserve_stopsAtCapacity() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(capacityLedger.tryReserve(1L, 3, 6));
+        }
+
+        assertFalse(capacityLedger.tryReserve(1L, 3, 6));
+        assertEquals(6, capacityLedger.seatsTaken(1L, 3));
+        assertEquals(0, capacityLedger.seatsTaken(1L, 4));
+    }
+
+    @Test
+    void release_freesOneSeat() {
+        capacityLedger.record(1L, 3);
+        capacityLedger.record(1L, 3);
+
+        capacityLedger.release(1L, 3);
+        capacityLedger.release(2L, 3);
+
+        assertEquals(1, capacityLedger.seatsTaken(1L, 3));
+        assertEquals(0, capacityLedger.seatsTaken(2L, 3));
+    }
+
+    @Test
+    void seatsTakenByWeek_isIndexedFromWeekOne() {
+        capacityLedger.record(1L, 1);
+        capacityLedger.record(1L, 52);
+        capacityLedger.record(1L, 52);
+
+        int[] taken = capacityLedger.seatsTakenByWeek(1L);
+
+        assertEquals(52, taken.length);
+        assertEquals(1, taken[0]);
+        assertEquals(2, taken[51]);
+        assertEquals(0, capacityLedger.seatsTakenByWeek(2L)[0]);
+    }
+
+    @Test
+    void tryReserve_neverOverbooksUnderContention() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        for (int i = 0; i < 500; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (capacityLedger.tryReserve(7L, 10, 6)) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(6, admitted.get());
+        assertEquals(6, capacityLedger.seatsTaken(7L, 10));
+    }
+
+    @Test
+    void tryReserve_rejectsWeekOutsideSeason() {
+        assertThrows(IllegalArgumentException.class, () -> capacityLedger.tryReserve(1L, 53, 6));
+    }
+}
@@ -0,0 +1,66 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dto.CourseOccupancy;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.services.CourseCapacityLedger;
+import tn.esprit.spring.services.CourseServicesImpl;
+import tn.esprit.spring.services.RegistrationServicesImpl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseOccupancyTest {
+
+    @InjectMocks
+    private CourseServicesImpl courseServices;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @Spy
+    private CourseCapacityLedger capacityLedger = new CourseCapacityLedger(null);
+
+    @Test
+    void retrieveOccupancy_filtersCoursesAndCountsFreeSeats() {
+        // Arrange
+        when(courseRepository.findAllByOrderByNumCourseAsc()).thenReturn(Arrays.asList(
+                new Course(1L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0),
+                new Course(2L, 2, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0),
+                new Course(3L, 1, TypeCourse.INDIVIDUAL, Support.SKI, 90f, 1, null, 0),
+                new Course(4L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SNOWBOARD, 50f, 2, null, 0)));
+        capacityLedger.record(1L, 3);
+        capacityLedger.record(1L, 3);
+        capacityLedger.record(3L, 3);
+
+        // Act
+        List<CourseOccupancy> all = courseServices.retrieveOccupancy(null, null, null);
+        List<CourseOccupancy> slice = courseServices.retrieveOccupancy(null, Support.SKI, 1);
+
+        // Assert
+        assertEquals(4, all.size());
+        assertEquals(Arrays.asList(1L, 3L), Arrays.asList(slice.get(0).getNumCourse(), slice.get(1).getNumCourse()));
+        assertEquals(2, slice.size());
+        CourseOccupancy collective = slice.get(0);
+        assertEquals(2, collective.getSeatsTaken()[2]);
+        assertEquals(RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY - 2, collective.getSeatsFree()[2]);
+        assertEquals(RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY, collective.getSeatsFree()[3]);
+        CourseOccupancy individual = slice.get(1);
+        assertEquals(1, individual.getSeatsTaken()[2]);
+        assertNull(individual.getCapacity());
+        assertNull(individual.getSeatsFree());
+        verify(courseRepository, times(2)).findAllByOrderByNumCourseAsc();
+    }
+}
@@ -0,0 +1,102 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.repositories.ExcursionRepository;
+import tn.esprit.spring.repositories.IPisteRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExcursionRepositoryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExcursionRepository excursionRepository;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private IPisteRepository pisteRepository;
+
+    @Test
+    void add_isIdempotentAndReadsAreSorted() {
+        // Arrange
+        Skier adam = skierRepository.save(new Skier(null, "Adam", "Excursion", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        Skier eve = skierRepository.save(new Skier(null, "Eve", "Excursion", LocalDate.now().minusYears(28), "Tunis", null, null, null, 0));
+        Piste green = pisteRepository.save(new Piste(null, "Green", Color.GREEN, 1200, 10, null));
+        Piste black = pisteRepository.save(new Piste(null, "Black", Color.BLACK, 800, 45, null));
+
+        // Act
+        assertTrue(excursionRepository.add(adam.getNumSkier(), black.getNumPiste()));
+        assertTrue(excursionRepository.add(adam.getNumSkier(), green.getNumPiste()));
+        assertFalse(excursionRepository.add(adam.getNumSkier(), black.getNumPiste()));
+        assertTrue(excursionRepository.add(eve.getNumSkier(), black.getNumPiste()));
+
+        // Assert
+        assertArrayEquals(new long[]{green.getNumPiste(), black.getNumPiste()}, excursionRepository.findPisteIdsBySkier(adam.getNumSkier()));
+        assertArrayEquals(new long[]{adam.getNumSkier(), eve.getNumSkier()}, excursionRepository.findSkierIdsByPiste(black.getNumPiste()));
+        assertArrayEquals(new long[0], excursionRepository.findPisteIdsBySkier(-1L));
+    }
+
+    @Test
+    void addAll_writesTheNewExcursionsInOneStatement() {
+        // Arrange
+        Skier skier = skierRepository.save(new Skier(null, "Adam", "Excursion", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        Piste green = pisteRepository.save(new Piste(null, "Green", Color.GREEN, 1200, 10, null));
+        Piste red = pisteRepository.save(new Piste(null, "Red", Color.RED, 900, 30, null));
+        excursionRepository.add(skier.getNumSkier(), green.getNumPiste());
+
+        // Act
+        excursionRepository.addAll(Arrays.asList(
+                new long[]{skier.getNumSkier(), green.getNumPiste()},
+                new long[]{skier.getNumSkier(), red.getNumPiste()}));
+
+        // Assert
+        assertArrayEquals(new long[]{green.getNumPiste(), red.getNumPiste()}, excursionRepository.findPisteIdsBySkier(skier.getNumSkier()));
+    }
+
+    @Test
+    void add_rejectsAnUnknownPiste() {
+        Skier skier = skierRepository.save(new Skier(null, "Adam", "Excursion", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+
+        assertThrows(DataIntegrityViolationException.class, () -> excursionRepository.add(skier.getNumSkier(), -1L));
+    }
+
+    @Test
+    void assignEndpoint_andIdEndpoints() throws Exception {
+        // Arrange
+        Skier skier = skierRepository.save(new Skier(null, "Adam", "Excursion", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        Piste piste = pisteRepository.save(new Piste(null, "Blue", Color.BLUE, 1000, 20, null));
+
+        // Act
+        mockMvc.perform(put("/skier/assignToPiste/" + skier.getNumSkier() + "/" + piste.getNumPiste()))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+
+        // Assert
+        mockMvc.perform(get("/skier/pistes/" + skier.getNumSkier()))
+                .andExpect(content().json("[" + piste.getNumPiste() + "]"));
+        mockMvc.perform(get("/piste/skiers/" + piste.getNumPiste()))
+                .andExpect(content().json("[" + skier.getNumSkier() + "]"));
+    }
+}
@@ -0,0 +1,187 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import tn.esprit.spring.repositories.ExcursionRepository;
+import tn.esprit.spring.services.ExcursionBacklogFullException;
+import tn.esprit.spring.services.ExcursionWriteBehind;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ExcursionWriteBehindTest {
+
+    private final ExcursionRepository excursionRepository = mock(ExcursionRepository.class);
+    private final CountDownLatch databaseBusy = new CountDownLatch(1);
+
+    @TempDir
+    Path directory;
+
+    private ExcursionWriteBehind writeBehind(boolean enabled, int queueCapacity) {
+        return new ExcursionWriteBehind(excursionRepository, new SimpleMeterRegistry(), enabled, queueCapacity, 500,
+                Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofMillis(50), directory.resolve("excursions.spill"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseBusy.countDown();
+    }
+
+    @Test
+    void offer_whenDisabled_isLeftToTheCaller() {
+        ExcursionWriteBehind writeBehind = writeBehind(false, 10);
+        writeBehind.start();
+
+        assertFalse(writeBehind.offer(1L, 1L));
+        verifyNoInteractions(excursionRepository);
+    }
+
+    @Test
+    void fullQueue_rejectsTheScan() {
+        // Arrange: the flusher is stuck writing the first scan, two more fill the queue
+        ExcursionWriteBehind writeBehind = startedWithABusyDatabase(2);
+        writeBehind.offer(2L, 2L);
+        writeBehind.offer(3L, 3L);
+
+        // Act & Assert
+        assertThrows(ExcursionBacklogFullException.class, () -> writeBehind.offer(4L, 4L));
+    }
+
+    @Test
+    void stop_flushesTheQueueOnceCoalesced() {
+        // Arrange
+        ExcursionWriteBehind writeBehind = startedWithABusyDatabase(10);
+        writeBehind.offer(2L, 2L);
+        writeBehind.offer(2L, 2L);
+        writeBehind.offer(3L, 3L);
+
+        // Act
+        databaseBusy.countDown();
+        writeBehind.stop();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<long[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(excursionRepository, times(2)).addAll(batches.capture());
+        assertEquals(List.of("1-1", "2-2", "3-3"), batches.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(excursion -> excursion[0] + "-" + excursion[1])
+                .collect(Collectors.toList()));
+        assertThrows(ExcursionBacklogFullException.class, () -> writeBehind.offer(4L, 4L));
+    }
+
+    @Test
+    void unknownSkier_isDroppedAndTheOthersWritten() {
+        // Arrange
+        doThrow(new DataIntegrityViolationException("fk")).when(excursionRepository).addAll(anyList());
+        doThrow(new DataIntegrityViolationException("fk")).when(excursionRepository).add(99L, 1L);
+        ExcursionWriteBehind writeBehind = writeBehind(true, 10);
+        writeBehind.start();
+
+        // Act
+        writeBehind.offer(99L, 1L);
+        writeBehind.offer(1L, 1L);
+        writeBehind.stop();
+
+        // Assert
+        verify(excursionRepository).add(99L, 1L);
+        verify(excursionRepository).add(1L, 1L);
+    }
+
+    @Test
+    void connectionLostWhileWritingOneByOne_retriesTheRestAndKeepsFlushing() {
+        // Arrange: (0, 0) holds the flusher until (99, 1) and (1, 1) are queued in the same batch
+        doAnswer(invocation -> {
+            List<long[]> excursions = invocation.getArgument(0);
+            if (excursions.get(0)[0] == 0L) {
+                databaseBusy.await();
+            } else if (excursions.stream().anyMatch(excursion -> excursion[0] == 99L)) {
+                throw new DataIntegrityViolationException("fk");
+            }
+            return null;
+        }).when(excursionRepository).addAll(anyList());
+        doThrow(new DataIntegrityViolationException("fk")).when(excursionRepository).add(99L, 1L);
+        doThrow(new DataAccessResourceFailureException("connection lost")).when(excursionRepository).add(1L, 1L);
+        ExcursionWriteBehind writeBehind = writeBehind(true, 10);
+        writeBehind.start();
+        writeBehind.offer(0L, 0L);
+        verify(excursionRepository, timeout(1000)).addAll(anyList());
+        writeBehind.offer(99L, 1L);
+        writeBehind.offer(1L, 1L);
+
+        // Act
+        databaseBusy.countDown();
+
+        // Assert
+        verify(excursionRepository, timeout(1000)).addAll(argThat(writes(1L)));
+        writeBehind.offer(2L, 2L);
+        verify(excursionRepository, timeout(1000)).addAll(argThat(writes(2L)));
+        writeBehind.stop();
+    }
+
+    @Test
+    void databaseDownAtShutdown_spillsTheScansAndTheNextStartWritesThem() throws Exception {
+        // Arrange
+        Path spill = directory.resolve("excursions.spill");
+        doThrow(new DataAccessResourceFailureException("failover")).when(excursionRepository).addAll(anyList());
+        ExcursionWriteBehind stopping = writeBehind(true, 10);
+        stopping.start();
+        stopping.offer(1L, 1L);
+        stopping.offer(2L, 2L);
+
+        // Act
+        stopping.stop();
+
+        // Assert
+        assertEquals(List.of("1,1", "2,2"), Files.readAllLines(spill).stream().sorted().collect(Collectors.toList()));
+
+        // Act: the database is back at the next start
+        reset(excursionRepository);
+        ExcursionWriteBehind restarted = writeBehind(true, 10);
+        restarted.start();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<long[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(excursionRepository, timeout(1000)).addAll(batches.capture());
+        assertEquals(List.of("1-1", "2-2"), batches.getValue().stream()
+                .map(excursion -> excursion[0] + "-" + excursion[1])
+                .sorted()
+                .collect(Collectors.toList()));
+        restarted.stop();
+        assertFalse(Files.exists(spill));
+    }
+
+    /* A batch of the single excursion of this skier */
+    private static ArgumentMatcher<List<long[]>> writes(long numSkier) {
+        return excursions -> excursions.size() == 1 && excursions.get(0)[0] == numSkier;
+    }
+
+    /* Started, its flusher blocked in the write of the scan (1, 1) until databaseBusy is released */
+    private ExcursionWriteBehind startedWithABusyDatabase(int queueCapacity) {
+        doAnswer(invocation -> {
+            databaseBusy.await();
+            return null;
+        }).doNothing().when(excursionRepository).addAll(anyList());
+        ExcursionWriteBehind writeBehind = writeBehind(true, queueCapacity);
+        writeBehind.start();
+        writeBehind.offer(1L, 1L);
+        verify(excursionRepository, timeout(1000)).addAll(anyList());
+        return writeBehind;
+    }
+}
@@ -0,0 +1,58 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tn.esprit.spring.dto.ExpiredSubscriptionView;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ExpiredSubscriptionRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.services.ISubscriptionServices;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ExpiredSubscriptionReportTest {
+
+    private static final LocalDate LONG_AGO = LocalDate.of(2001, 1, 31);
+
+    @Autowired
+    private ISubscriptionServices subscriptionServices;
+
+    @Autowired
+    private ExpiredSubscriptionRepository expiredSubscriptionRepository;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Test
+    void subscriptionWrittenBehindTheLastReport_isStillReported() {
+        // Arrange: a first run reports everything that expired so far
+        subscriptionServices.retrieveSubscriptions();
+        Subscription late = new Subscription(null, LONG_AGO.minusMonths(1), LONG_AGO, 60f, TypeSubscription.MONTHLY, 0);
+        skierRepository.save(new Skier(null, "Lina", "Late", LocalDate.now().minusYears(20), "Sousse", late, null, null, 0));
+
+        // Act
+        boolean pendingBefore = isUnreported(late.getNumSub());
+        subscriptionServices.retrieveSubscriptions();
+        boolean pendingAfter = isUnreported(late.getNumSub());
+        Subscription moved = subscriptionServices.retrieveSubscriptionById(late.getNumSub());
+        moved.setEndDate(LONG_AGO.plusDays(1));
+        subscriptionServices.updateSubscription(moved);
+
+        // Assert: reported once, then again once its end date moved
+        assertTrue(pendingBefore);
+        assertFalse(pendingAfter);
+        assertTrue(isUnreported(late.getNumSub()));
+    }
+
+    private boolean isUnreported(long numSub) {
+        return expiredSubscriptionRepository.findUnreported(LocalDate.of(1970, 1, 1), 0L, LocalDate.now(), 10_000).stream()
+                .map(ExpiredSubscriptionView::getNumSub)
+                .anyMatch(id -> id == numSub);
+    }
+}
@@ -0,0 +1,185 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.util.unit.DataSize;
+import tn.esprit.spring.filters.IdempotencyKeyFilter;
+import tn.esprit.spring.filters.ClientIdentity;
+import tn.esprit.spring.services.IdempotencyKeys;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyKeyTest {
+
+    private static final String SUBSCRIPTION = "{\"startDate\":\"2025-01-01\",\"price\":120.0,\"typeSub\":\"MONTHLY\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void retry_getsTheFirstResponseWithoutRunningAgain() throws Exception {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        String first = mockMvc.perform(addSubscription(key, SUBSCRIPTION))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int subscriptions = subscriptions();
+
+        // Act
+        String retried = mockMvc.perform(addSubscription(key, SUBSCRIPTION))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyKeyFilter.REPLAYED, "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        // Assert
+        assertEquals(first, retried);
+        assertEquals(subscriptions, subscriptions());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from idempotency_key where idempotency_key = ? and status = 200", Integer.class, scoped(key)));
+    }
+
+    @Test
+    void sameKeyForAnotherRequest_isRejected() throws Exception {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION)).andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION.replace("120.0", "130.0")))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void requestsWithoutKey_runEveryTime() throws Exception {
+        // Arrange
+        int subscriptions = subscriptions();
+
+        // Act
+        mockMvc.perform(addSubscription(null, SUBSCRIPTION)).andExpect(status().isOk());
+        mockMvc.perform(addSubscription(null, SUBSCRIPTION)).andExpect(status().isOk());
+
+        // Assert
+        assertEquals(subscriptions + 2, subscriptions());
+    }
+
+    @Test
+    void inFlightKey_isAConflict() throws Exception {
+        // Arrange: claimed by a request still running (on another node)
+        String running = claimedAgo(Duration.ofSeconds(1));
+
+        // Act & Assert
+        mockMvc.perform(addSubscription(running, SUBSCRIPTION))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void claimPastItsLease_isTakenOver() throws Exception {
+        // Arrange: claimed by a request whose node died before it answered
+        String abandoned = claimedAgo(Duration.ofMinutes(1));
+
+        // Act
+        mockMvc.perform(addSubscription(abandoned, SUBSCRIPTION))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyKeyFilter.REPLAYED));
+
+        // Assert
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from idempotency_key where idempotency_key = ? and status = 200", Integer.class, scoped(abandoned)));
+    }
+
+    @Test
+    void sameKeyFromAnotherClient_runsAgain() throws Exception {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION).with(from("10.0.0.1")))
+                .andExpect(status().isOk());
+        int subscriptions = subscriptions();
+
+        // Act
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION).with(from("10.0.0.2")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyKeyFilter.REPLAYED));
+
+        // Assert
+        assertEquals(subscriptions + 1, subscriptions());
+    }
+
+    @Test
+    void unknownApiKey_isScopedToTheAddress() throws Exception {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION).header(ClientIdentity.API_KEY, "kiosk-1"))
+                .andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION).header(ClientIdentity.API_KEY, "kiosk-2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyKeyFilter.REPLAYED, "true"));
+    }
+
+    @Test
+    void bodyOverTheLimit_isRejectedBeforeItRuns() throws Exception {
+        // Arrange
+        int subscriptions = subscriptions();
+
+        // Act & Assert
+        mockMvc.perform(post("/subscription/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new byte[(int) DataSize.ofMegabytes(1).toBytes() + 1])
+                        .header(IdempotencyKeyFilter.HEADER, UUID.randomUUID().toString()))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(subscriptions, subscriptions());
+    }
+
+    /* A key claimed by a request with the fingerprint of SUBSCRIPTION that has not answered yet */
+    private String claimedAgo(Duration age) throws Exception {
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(addSubscription(key, SUBSCRIPTION)).andExpect(status().isOk());
+        String running = UUID.randomUUID().toString();
+        jdbcTemplate.update("insert into idempotency_key (idempotency_key, fingerprint, created_at) "
+                + "select ?, fingerprint, ? from idempotency_key where idempotency_key = ?",
+                scoped(running), System.currentTimeMillis() - age.toMillis(), scoped(key));
+        return running;
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    /* MockMvc requests come from 127.0.0.1 */
+    private static String scoped(String key) {
+        return IdempotencyKeys.scope("ip:127.0.0.1", key);
+    }
+
+    private static MockHttpServletRequestBuilder addSubscription(String key, String subscription) {
+        MockHttpServletRequestBuilder request = post("/subscription/add")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(subscription);
+        return key == null ? request : request.header(IdempotencyKeyFilter.HEADER, key);
+    }
+
+    private int subscriptions() {
+        return jdbcTemplate.queryForObject("select count(*) from subscription", Integer.class);
+    }
+}
@@ -0,0 +1,86 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import tn.esprit.spring.dto.IdempotentResponse;
+import tn.esprit.spring.repositories.IdempotencyKeyRepository;
+import tn.esprit.spring.services.IdempotencyKeys;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeysTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyKeys idempotencyKeys;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeys = new IdempotencyKeys(idempotencyKeyRepository, Duration.ofHours(24), 100, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void databaseDown_keysAreClaimedLocally() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyLong()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act
+        IdempotencyKeys.Claim first = idempotencyKeys.claim("key", "fingerprint");
+        IdempotencyKeys.Claim retry = idempotencyKeys.claim("key", "fingerprint");
+
+        // Assert
+        assertTrue(first.isClaimed());
+        assertFalse(retry.isClaimed());
+        assertFalse(retry.getRecorded().isCompleted());
+    }
+
+    @Test
+    void responseNotRecorded_isStillReplayedByThisNode() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyLong())).thenReturn(true);
+        IdempotencyKeys.Claim claim = idempotencyKeys.claim("key", "fingerprint");
+        doThrow(new DataAccessResourceFailureException("down"))
+                .when(idempotencyKeyRepository).complete(anyString(), anyString(), anyLong(), anyInt(), any(), any());
+
+        // Act
+        idempotencyKeys.complete("key", "fingerprint", claim, 200, "application/json", new byte[]{'{', '}'});
+        IdempotencyKeys.Claim retry = idempotencyKeys.claim("key", "fingerprint");
+
+        // Assert
+        assertEquals(200, retry.getRecorded().getStatus());
+        verify(idempotencyKeyRepository, times(1)).claim(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void claimTakenOverWhileRunning_doesNotRecordItsResponse() {
+        // Arrange: a retry took the key over once the lease ran out, the row is fenced against this claim
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyLong())).thenReturn(true);
+        IdempotencyKeys.Claim claim = idempotencyKeys.claim("key", "fingerprint");
+        when(idempotencyKeyRepository.complete("key", "fingerprint", claim.getClaimedAt(), 200, null, new byte[0])).thenReturn(false);
+
+        // Act
+        idempotencyKeys.complete("key", "fingerprint", claim, 200, null, new byte[0]);
+        idempotencyKeys.release("key", "fingerprint", claim);
+
+        // Assert: the next retry asks the table, and the release only targets this claim
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyLong())).thenReturn(false);
+        when(idempotencyKeyRepository.find("key")).thenReturn(Optional.of(
+                new IdempotentResponse("fingerprint", null, null, null, System.currentTimeMillis())));
+        assertFalse(idempotencyKeys.claim("key", "fingerprint").isClaimed());
+        verify(idempotencyKeyRepository).find("key");
+        verify(idempotencyKeyRepository).release("key", "fingerprint", claim.getClaimedAt());
+        verify(idempotencyKeyRepository, never()).delete(anyString(), anyLong());
+    }
+}
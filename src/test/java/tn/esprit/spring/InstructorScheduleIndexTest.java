@@ -0,0 +1,81 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.services.CourseCapacityLedger;
+import tn.esprit.spring.services.InstructorScheduleIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstructorScheduleIndexTest {
+
+    private final CourseCapacityLedger capacityLedger = new CourseCapacityLedger(null);
+
+    private InstructorScheduleIndex scheduleIndex;
+
+    @BeforeEach
+    void setUp() {
+        capacityLedger.record(10L, 7);
+        capacityLedger.record(10L, 3);
+        capacityLedger.record(10L, 7);
+        capacityLedger.record(20L, 5);
+        scheduleIndex = new InstructorScheduleIndex(null, capacityLedger);
+        scheduleIndex.instructorCoursesChanged(1L, Arrays.asList(
+                new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0),
+                new Course(20L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SNOWBOARD, 50f, 2, null, 0)));
+    }
+
+    @Test
+    void weeks_areSortedDistinctAndPerSupport() {
+        assertEquals(Arrays.asList(3, 7), scheduleIndex.weeks(1L, Support.SKI));
+        assertEquals(Collections.singletonList(5), scheduleIndex.weeks(1L, Support.SNOWBOARD));
+        assertTrue(scheduleIndex.weeks(2L, Support.SKI).isEmpty());
+    }
+
+    @Test
+    void registered_andUnregistered_followTheLedger() {
+        // Arrange
+        capacityLedger.record(10L, 1);
+
+        // Act
+        scheduleIndex.registered(10L, 1);
+        capacityLedger.release(10L, 3);
+        scheduleIndex.unregistered(10L);
+
+        // Assert
+        assertEquals(Arrays.asList(1, 7), scheduleIndex.weeks(1L, Support.SKI));
+    }
+
+    @Test
+    void instructorCoursesChanged_movesTheCourseSchedule() {
+        // Arrange
+        Course ski = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+
+        // Act
+        scheduleIndex.instructorCoursesChanged(2L, Collections.singleton(ski));
+
+        // Assert
+        assertTrue(scheduleIndex.weeks(1L, Support.SKI).isEmpty());
+        assertEquals(Arrays.asList(3, 7), scheduleIndex.weeks(2L, Support.SKI));
+        assertEquals(Collections.singletonList(5), scheduleIndex.weeks(1L, Support.SNOWBOARD));
+    }
+
+    @Test
+    void courseChanged_movesWeeksToTheNewSupport() {
+        // Arrange
+        Course snowboard = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SNOWBOARD, 50f, 2, null, 0);
+
+        // Act
+        scheduleIndex.courseChanged(snowboard);
+
+        // Assert
+        assertTrue(scheduleIndex.weeks(1L, Support.SKI).isEmpty());
+        assertEquals(Arrays.asList(3, 5, 7), scheduleIndex.weeks(1L, Support.SNOWBOARD));
+    }
+}
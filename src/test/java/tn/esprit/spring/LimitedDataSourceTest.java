@@ -0,0 +1,67 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.configs.LimitedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LimitedDataSourceTest {
+
+    @Mock
+    private DataSource pool;
+
+    @Mock
+    private Connection pooledConnection;
+
+    @Test
+    void closingTheConnection_givesThePermitBackOnce() throws SQLException {
+        // Arrange
+        when(pool.getConnection()).thenReturn(pooledConnection);
+        LimitedDataSource dataSource = new LimitedDataSource(pool, 1, 10);
+
+        // Act
+        Connection connection = dataSource.getConnection();
+        int inUse = dataSource.inUse();
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertEquals(1, inUse);
+        assertEquals(1, dataSource.availablePermits());
+        verify(pooledConnection, times(2)).close();
+    }
+
+    @Test
+    void saturatedLimit_failsFastAndCountsTheRejection() throws SQLException {
+        // Arrange
+        when(pool.getConnection()).thenReturn(pooledConnection);
+        LimitedDataSource dataSource = new LimitedDataSource(pool, 1, 10);
+        dataSource.getConnection();
+
+        // Act & Assert
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.rejections());
+        verify(pool, times(1)).getConnection();
+    }
+
+    @Test
+    void poolFailure_releasesThePermit() throws SQLException {
+        // Arrange
+        when(pool.getConnection()).thenThrow(new SQLException("pool down"));
+        LimitedDataSource dataSource = new LimitedDataSource(pool, 1, 10);
+
+        // Act & Assert
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.availablePermits());
+    }
+}
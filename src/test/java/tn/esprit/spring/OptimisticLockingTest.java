@@ -0,0 +1,180 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+import tn.esprit.spring.services.ICourseServices;
+import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.ISubscriptionServices;
+import tn.esprit.spring.services.RecurringRevenueAggregator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/* Each of the THREADS racing writers loses at most THREADS - 1 times, so that many attempts always suffice */
+@SpringBootTest(properties = "ski.retry.max-attempts=" + OptimisticLockingTest.THREADS)
+@AutoConfigureMockMvc
+class OptimisticLockingTest {
+
+    static final int THREADS = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ICourseServices courseServices;
+
+    @Autowired
+    private ISkierServices skierServices;
+
+    @Autowired
+    private ISubscriptionServices subscriptionServices;
+
+    @Autowired
+    private RecurringRevenueAggregator revenueAggregator;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Test
+    void concurrentUpdatesFromTheSameVersion_onlyOneWins() throws Exception {
+        // Arrange
+        Course course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0));
+        List<Callable<Course>> edits = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Course edit = new Course(course.getNumCourse(), 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 60f + i, 2, null, course.getVersion());
+            edits.add(() -> courseServices.updateCourse(edit));
+        }
+
+        // Act
+        int updated = 0;
+        int conflicts = 0;
+        for (Future<Course> result : race(edits)) {
+            try {
+                result.get();
+                updated++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof OptimisticLockingFailureException, e.getCause().toString());
+                conflicts++;
+            }
+        }
+
+        // Assert
+        assertEquals(1, updated);
+        assertEquals(THREADS - 1, conflicts);
+        assertEquals(course.getVersion() + 1, courseRepository.findById(course.getNumCourse()).get().getVersion());
+    }
+
+    @Test
+    void concurrentSubscriptionAssignments_areRetriedUntilAllLand() throws Exception {
+        // Arrange
+        Skier skier = skierRepository.save(new Skier(null, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        List<Callable<Skier>> assignments = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Subscription subscription = subscriptionRepository.save(new Subscription(null, LocalDate.now(), LocalDate.now().plusMonths(1), 100f + i, TypeSubscription.MONTHLY, 0));
+            assignments.add(() -> skierServices.assignSkierToSubscription(skier.getNumSkier(), subscription.getNumSub()));
+        }
+
+        // Act
+        for (Future<Skier> result : race(assignments)) {
+            result.get();
+        }
+
+        // Assert
+        assertEquals(skier.getVersion() + THREADS, skierRepository.findById(skier.getNumSkier()).get().getVersion());
+    }
+
+    @Test
+    void concurrentSubscriptionUpdates_keepTheRevenueInStep() throws Exception {
+        // Arrange: annual subscriptions are only written through the services in this class
+        Subscription subscription = subscriptionServices.addSubscription(
+                new Subscription(null, LocalDate.now(), null, 1200f, TypeSubscription.ANNUAL, 0));
+        List<Callable<Subscription>> edits = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Subscription edit = new Subscription(subscription.getNumSub(), subscription.getStartDate(), subscription.getEndDate(),
+                    1300f + i, TypeSubscription.ANNUAL, subscription.getVersion());
+            edits.add(() -> subscriptionServices.updateSubscription(edit));
+        }
+
+        // Act
+        for (Future<Subscription> result : race(edits)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof OptimisticLockingFailureException, e.getCause().toString());
+            }
+        }
+
+        // Assert
+        RecurringRevenueAggregator reseeded = new RecurringRevenueAggregator(subscriptionRepository);
+        reseeded.seed();
+        assertEquals(reseeded.average(TypeSubscription.ANNUAL), revenueAggregator.average(TypeSubscription.ANNUAL), 0.001);
+    }
+
+    @Test
+    void staleUpdate_isAnsweredWithConflict() throws Exception {
+        // Arrange
+        Course course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0));
+        course.setPrice(55f);
+        courseServices.updateCourse(course);
+
+        // Act & Assert
+        mockMvc.perform(put("/course/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numCourse\":" + course.getNumCourse() + ",\"level\":1,\"typeCourse\":\"COLLECTIVE_ADULT\","
+                                + "\"support\":\"SKI\",\"price\":70.0,\"timeSlot\":2,\"version\":0}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+        assertEquals(55f, courseRepository.findById(course.getNumCourse()).get().getPrice());
+    }
+
+    /* Starts every task at the same time, each on its own thread */
+    private static <T> List<Future<T>> race(List<Callable<T>> tasks) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        try {
+            for (Callable<T> task : tasks) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IRegistrationServices registrationServices;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Test
+    void prometheus_exportsServiceRepositoryPoolAndHibernateMetrics() throws Exception {
+        // Arrange
+        Skier skier = skierRepository.save(new Skier(null, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        Course children = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_CHILDREN, Support.SKI, 50f, 2, null, 0));
+
+        // Act
+        registrationServices.addRegistrationAndAssignToSkierAndCourse(
+                new Registration(null, 3, null, null), skier.getNumSkier(), children.getNumCourse());
+
+        // Assert
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("ski_registrations_total{application=\"stationSki\",outcome=\"age_rejected\",} 1.0")))
+                .andExpect(content().string(containsString("ski_service_invocations_seconds_count{application=\"stationSki\",exception=\"none\",method=\"addRegistrationAndAssignToSkierAndCourse\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_statements_total")));
+    }
+}
@@ -0,0 +1,138 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tn.esprit.spring.filters.ClientIdentity;
+import tn.esprit.spring.filters.RateLimitFilter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /* Buckets of 3 reads, 1 registration and 2 other writes, refilled slowly enough not to matter here */
+    private RateLimitFilter filter(int maxInFlight) {
+        return new RateLimitFilter(meterRegistry, 3, 0.01, 1, 0.01, 2, 0.01, maxInFlight, 1000, new ClientIdentity(Set.of("kiosk-1")));
+    }
+
+    @Test
+    void emptyBucket_isAnswered429WithRetryAfter() throws Exception {
+        // Arrange
+        RateLimitFilter filter = filter(10);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send(filter, "GET", "/skier/all", "10.0.0.1", null).getStatus());
+        }
+
+        // Act
+        MockHttpServletResponse limited = send(filter, "GET", "/skier/all", "10.0.0.1", null);
+
+        // Assert
+        assertEquals(429, limited.getStatus());
+        assertTrue(Long.parseLong(limited.getHeader(HttpHeaders.RETRY_AFTER)) > 0);
+        assertEquals(1, meterRegistry.counter(RateLimitFilter.SHED, "status", "429", "class", "reads").count());
+        assertEquals(200, send(filter, "GET", "/skier/all", "10.0.0.2", null).getStatus());
+        assertEquals(200, send(filter, "GET", "/skier/all", "10.0.0.1", "kiosk-1").getStatus());
+    }
+
+    @Test
+    void unknownApiKey_sharesTheBucketOfItsAddress() throws Exception {
+        // Arrange
+        RateLimitFilter filter = filter(10);
+        for (int i = 0; i < 3; i++) {
+            send(filter, "GET", "/skier/all", "10.0.0.1", "kiosk-" + i + "-forged");
+        }
+
+        // Act & Assert
+        assertEquals(429, send(filter, "GET", "/skier/all", "10.0.0.1", "kiosk-7").getStatus());
+        assertEquals(429, send(filter, "GET", "/skier/all", "10.0.0.1", null).getStatus());
+    }
+
+    @Test
+    void endpointClasses_haveTheirOwnBuckets() throws Exception {
+        // Arrange
+        RateLimitFilter filter = filter(10);
+        for (int i = 0; i < 3; i++) {
+            send(filter, "GET", "/course/all", "10.0.0.1", null);
+        }
+
+        // Act & Assert
+        assertEquals(200, send(filter, "PUT", "/registration/addAndAssignToSkierAndCourse/1/1", "10.0.0.1", null).getStatus());
+        assertEquals(429, send(filter, "PUT", "/registration/addAndAssignToSkierAndCourse/1/1", "10.0.0.1", null).getStatus());
+        assertEquals(200, send(filter, "POST", "/skier/add", "10.0.0.1", null).getStatus());
+        assertEquals(200, send(filter, "GET", "/actuator/health", "10.0.0.1", null).getStatus());
+    }
+
+    @Test
+    void requestsPastMaxInFlight_areShedWith503() throws Exception {
+        // Arrange: the second request arrives while the first one is still running
+        RateLimitFilter filter = filter(1);
+        AtomicReference<MockHttpServletResponse> concurrent = new AtomicReference<>();
+        MockFilterChain running = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp)
+                    throws ServletException, IOException {
+                concurrent.set(send(filter, "GET", "/piste/all", "10.0.0.2", null));
+            }
+        });
+
+        // Act
+        filter.doFilter(request("GET", "/piste/all", "10.0.0.1", null), new MockHttpServletResponse(), running);
+
+        // Assert
+        assertEquals(503, concurrent.get().getStatus());
+        assertEquals("1", concurrent.get().getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, send(filter, "GET", "/piste/all", "10.0.0.2", null).getStatus());
+    }
+
+    @Test
+    void streamedResponse_holdsItsSlotUntilItCompletes() throws Exception {
+        // Arrange: a StreamingResponseBody still writing after the filter chain returned
+        RateLimitFilter filter = filter(1);
+        MockHttpServletRequest streaming = request("GET", "/registration/export", "10.0.0.1", null);
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                req.startAsync();
+            }
+        }));
+
+        // Act
+        int whileStreaming = send(filter, "GET", "/piste/all", "10.0.0.2", null).getStatus();
+        streaming.getAsyncContext().complete();
+        int afterwards = send(filter, "GET", "/piste/all", "10.0.0.2", null).getStatus();
+
+        // Assert
+        assertEquals(503, whileStreaming);
+        assertEquals(200, afterwards);
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, String method, String uri, String address, String apiKey)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, uri, address, apiKey), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String address, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(address);
+        if (apiKey != null) {
+            request.addHeader(ClientIdentity.API_KEY, apiKey);
+        }
+        return request;
+    }
+}
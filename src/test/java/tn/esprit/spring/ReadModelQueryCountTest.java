@@ -0,0 +1,116 @@
+package tn.esprit.spring;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.entities.*;
+import tn.esprit.spring.repositories.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Each list endpoint must cost a fixed number of SQL statements, whatever the number of rows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadModelQueryCountTest {
+
+    private static final int SKIERS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private IInstructorRepository instructorRepository;
+
+    @Autowired
+    private IPisteRepository pisteRepository;
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Course[] courses = new Course[4];
+        for (int i = 0; i < courses.length; i++) {
+            courses[i] = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0));
+        }
+        instructorRepository.save(new Instructor(null, "Ines", "One", LocalDate.now(),
+                new HashSet<>(Arrays.asList(courses[0], courses[1])), 0));
+        instructorRepository.save(new Instructor(null, "Ilyes", "Two", LocalDate.now(),
+                new HashSet<>(Arrays.asList(courses[2], courses[3])), 0));
+        Piste green = pisteRepository.save(new Piste(null, "Green", Color.GREEN, 1200, 10, null));
+        Piste black = pisteRepository.save(new Piste(null, "Black", Color.BLACK, 800, 45, null));
+
+        for (int i = 0; i < SKIERS; i++) {
+            Subscription subscription = new Subscription(null, LocalDate.now(), LocalDate.now().plusYears(1), 500f, TypeSubscription.ANNUAL, 0);
+            Skier skier = skierRepository.save(new Skier(null, "Skier" + i, "Test", LocalDate.now().minusYears(30), "Tunis",
+                    subscription, new HashSet<>(Arrays.asList(green, black)), null, 0));
+            registrationRepository.save(new Registration(null, 1, skier, courses[i % courses.length]));
+            registrationRepository.save(new Registration(null, 2, skier, courses[(i + 1) % courses.length]));
+        }
+    }
+
+    @Test
+    void skierList_isOneStatement() throws Exception {
+        assertStatements(1, "/skier/all");
+        mockMvc.perform(get("/skier/all")).andExpect(jsonPath("$.length()").value(SKIERS));
+    }
+
+    @Test
+    void skiersBySubscription_isOneStatement() throws Exception {
+        assertStatements(1, "/skier/getSkiersBySubscription?typeSubscription=ANNUAL");
+    }
+
+    @Test
+    void courseList_isOneStatement() throws Exception {
+        assertStatements(1, "/course/all");
+    }
+
+    @Test
+    void pisteList_isOneStatement() throws Exception {
+        assertStatements(1, "/piste/all");
+    }
+
+    @Test
+    void instructorList_isTwoStatements() throws Exception {
+        assertStatements(2, "/instructor/all");
+        mockMvc.perform(get("/instructor/all")).andExpect(jsonPath("$[0].courses.length()").value(2));
+    }
+
+    private void assertStatements(long expected, String url) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertEquals(expected, statistics.getPrepareStatementCount(), url);
+        assertEquals(0, statistics.getEntityFetchCount(), url);
+        assertEquals(0, statistics.getCollectionFetchCount(), url);
+    }
+}
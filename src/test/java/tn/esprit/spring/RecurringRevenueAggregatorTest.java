@@ -0,0 +1,65 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dto.TypeSubscriptionRevenue;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+import tn.esprit.spring.services.RecurringRevenueAggregator;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecurringRevenueAggregatorTest {
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Test
+    void monthlyRecurringRevenue_isZeroWithoutSubscriptions() {
+        // Arrange
+        when(subscriptionRepository.sumRevenueByTypeSub()).thenReturn(Collections.emptyList());
+
+        // Act
+        RecurringRevenueAggregator aggregator = seeded();
+
+        // Assert
+        assertEquals(0f, aggregator.monthlyRecurringRevenue());
+    }
+
+    @Test
+    void monthlyRecurringRevenue_followsWrites() {
+        // Arrange
+        TypeSubscriptionRevenue annual = mock(TypeSubscriptionRevenue.class);
+        when(annual.getTypeSub()).thenReturn(TypeSubscription.ANNUAL);
+        when(annual.getRevenue()).thenReturn(2400.0);
+        when(annual.getSubscriptions()).thenReturn(2L);
+        when(subscriptionRepository.sumRevenueByTypeSub()).thenReturn(Collections.singletonList(annual));
+        RecurringRevenueAggregator aggregator = seeded();
+
+        // Act
+        Subscription monthly = new Subscription(3L, LocalDate.now(), LocalDate.now().plusMonths(1), 100f, TypeSubscription.MONTHLY, 0);
+        aggregator.add(monthly);
+        monthly.setPrice(130f);
+        aggregator.replace(TypeSubscription.MONTHLY, 100f, monthly);
+
+        // Assert : 130 + 1200 / 12
+        assertEquals(230f, aggregator.monthlyRecurringRevenue(), 0.001);
+
+        aggregator.remove(monthly);
+        assertEquals(100f, aggregator.monthlyRecurringRevenue(), 0.001);
+    }
+
+    private RecurringRevenueAggregator seeded() {
+        RecurringRevenueAggregator aggregator = new RecurringRevenueAggregator(subscriptionRepository);
+        aggregator.seed();
+        return aggregator;
+    }
+}
@@ -0,0 +1,135 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tn.esprit.spring.controllers.RegistrationRestController;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RegistrationExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private IRegistrationRepository registrationRepository;
+
+    private Course course;
+    private Skier skier;
+
+    @BeforeAll
+    void setUp() {
+        course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0));
+        skier = skierRepository.save(new Skier(null, "Adam", "Smith, Jr", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        for (int week = 1; week <= 4; week++) {
+            registrationRepository.save(new Registration(null, week, skier, course));
+        }
+        registrationRepository.save(new Registration(null, 51, skier, course));
+    }
+
+    @Test
+    void export_streamsTheWeekRangeAsCsv() throws Exception {
+        // Act
+        String csv = export("/registration/export?fromWeek=2&toWeek=3", null).getResponse().getContentAsString();
+
+        // Assert: the application context, and its database, is shared with other test classes
+        List<String> lines = Arrays.asList(csv.split("\n"));
+        assertEquals(RegistrationRestController.CSV_HEADER, lines.get(0));
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.startsWith("2,") || line.startsWith("3,")));
+        List<String> ours = lines.stream().filter(line -> line.endsWith("\"Smith, Jr\"")).collect(Collectors.toList());
+        assertEquals(Arrays.asList(
+                "2," + course.getNumCourse() + ",COLLECTIVE_ADULT,50.0," + skier.getNumSkier() + ",Adam,\"Smith, Jr\"",
+                "3," + course.getNumCourse() + ",COLLECTIVE_ADULT,50.0," + skier.getNumSkier() + ",Adam,\"Smith, Jr\""), ours);
+    }
+
+    @Test
+    void export_isGzippedWhenAccepted() throws Exception {
+        // Act
+        MvcResult result = export("/registration/export?format=ndjson&from=2025-01-01&to=2025-01-31", "gzip, deflate");
+
+        // Assert: January 2025 is ISO weeks 1 to 5
+        assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        String ndjson = gunzip(result.getResponse().getContentAsByteArray());
+        assertTrue(ndjson.startsWith("{\"numWeek\":1,"));
+        assertEquals(4, Arrays.stream(ndjson.split("\n"))
+                .filter(line -> line.contains("\"numSkier\":" + skier.getNumSkier() + ","))
+                .count());
+    }
+
+    @Test
+    void export_ofDatesAcrossNewYear_wrapsAroundTheWeeks() throws Exception {
+        // Act: ISO weeks 51 of 2024 to 2 of 2025
+        String csv = export("/registration/export?from=2024-12-16&to=2025-01-08", null).getResponse().getContentAsString();
+
+        // Assert
+        List<Integer> weeks = Arrays.stream(csv.split("\n")).skip(1)
+                .filter(line -> line.endsWith("\"Smith, Jr\""))
+                .map(line -> Integer.valueOf(line.substring(0, line.indexOf(','))))
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(51, 1, 2), weeks);
+    }
+
+    @Test
+    void export_rejectsAnInvalidRange() throws Exception {
+        mockMvc.perform(get("/registration/export?fromWeek=10&toWeek=3"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/registration/export?from=2025-02-01&to=2025-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/registration/export?fromWeek=2&from=2025-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult export(String url, String acceptEncoding) throws Exception {
+        MvcResult started = mockMvc.perform(acceptEncoding == null ? get(url) : get(url).header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
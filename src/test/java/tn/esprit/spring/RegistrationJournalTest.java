@@ -0,0 +1,151 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.CourseCapacityLedger;
+import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.RegistrationJournal;
+import tn.esprit.spring.services.RegistrationJournalReplayer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegistrationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<RegistrationJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (RegistrationJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void appendedRegistrations_surviveARestart() throws IOException {
+        // Arrange
+        RegistrationJournal journal = open(DataSize.ofKilobytes(4));
+        journal.append(1L, 10L, 5);
+        journal.append(2L, 10L, 6);
+        journal.close();
+
+        // Act
+        RegistrationJournal reopened = open(DataSize.ofKilobytes(4));
+
+        // Assert
+        assertEquals(List.of("1:10:5", "2:10:6"), keys(reopened.pending()));
+        assertTrue(reopened.append(3L, 10L, 7));
+        assertEquals(3, reopened.pendingCount());
+    }
+
+    @Test
+    void tornRecord_endsTheJournal() throws IOException {
+        // Arrange: the second record was half written when the process died
+        RegistrationJournal journal = open(DataSize.ofKilobytes(4));
+        journal.append(1L, 10L, 5);
+        journal.append(2L, 10L, 6);
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("registrations.journal").toFile(), "rw")) {
+            file.seek(32 + 8);
+            file.writeLong(11L);
+        }
+
+        // Act & Assert
+        assertEquals(List.of("1:10:5"), keys(open(DataSize.ofKilobytes(4)).pending()));
+    }
+
+    @Test
+    void fullJournal_refusesTheAppend() {
+        RegistrationJournal journal = open(DataSize.ofBytes(64));
+
+        assertTrue(journal.append(1L, 10L, 5));
+        assertTrue(journal.append(2L, 10L, 5));
+        assertFalse(journal.append(3L, 10L, 5));
+    }
+
+    @Test
+    void concurrentAppends_areAllDurable() throws Exception {
+        // Arrange
+        RegistrationJournal journal = open(DataSize.ofKilobytes(64));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> appends = new ArrayList<>();
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            long numSkier = thread;
+            appends.add(pool.submit(() -> {
+                for (int week = 1; week <= 50; week++) {
+                    assertTrue(journal.append(numSkier, 10L, week));
+                }
+            }));
+        }
+        for (Future<?> append : appends) {
+            append.get();
+        }
+        pool.shutdown();
+
+        // Assert
+        Set<String> reopened = new HashSet<>(keys(open(DataSize.ofKilobytes(64)).pending()));
+        assertEquals(400, reopened.size());
+    }
+
+    @Test
+    void replay_stopsWhileTheDatabaseIsUnreachableAndClearsTheJournalOnceApplied() throws IOException {
+        // Arrange
+        RegistrationJournal journal = open(DataSize.ofKilobytes(4));
+        journal.append(1L, 10L, 5);
+        journal.append(2L, 10L, 5);
+        journal.append(3L, 10L, 5);
+        IRegistrationServices registrationServices = mock(IRegistrationServices.class);
+        when(registrationServices.replayRegistration(1L, 10L, 5)).thenReturn(new Registration(100L, 5, null, null));
+        when(registrationServices.replayRegistration(2L, 10L, 5))
+                .thenThrow(new CannotCreateTransactionException("failover"))
+                .thenReturn(new Registration(101L, 5, null, null));
+        RegistrationJournalReplayer replayer = new RegistrationJournalReplayer(journal, registrationServices, new CourseCapacityLedger(null));
+
+        // Act
+        int firstRun = replayer.replay();
+        int secondRun = replayer.replay();
+
+        // Assert
+        assertEquals(1, firstRun);
+        assertEquals(2, secondRun);
+        verify(registrationServices, times(1)).replayRegistration(1L, 10L, 5);
+        assertEquals(0, journal.pendingCount());
+        journal.close();
+        assertTrue(open(DataSize.ofKilobytes(4)).pending().isEmpty());
+    }
+
+    private RegistrationJournal open(DataSize size) {
+        RegistrationJournal journal = new RegistrationJournal(new SimpleMeterRegistry(), true,
+                directory.resolve("registrations.journal"), size);
+        opened.add(journal);
+        return journal;
+    }
+
+    private static List<String> keys(List<RegistrationJournal.Entry> entries) {
+        return entries.stream()
+                .map(entry -> entry.getNumSkier() + ":" + entry.getNumCourse() + ":" + entry.getNumWeek())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,251 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import tn.esprit.spring.dto.RegistrationRequest;
+import tn.esprit.spring.dto.RegistrationResult;
+import tn.esprit.spring.dto.RegistrationStatus;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.services.CachedCourses;
+import tn.esprit.spring.services.CourseCapacityLedger;
+import tn.esprit.spring.services.InstructorScheduleIndex;
+import tn.esprit.spring.services.RegistrationJournal;
+import tn.esprit.spring.services.RegistrationMetrics;
+import tn.esprit.spring.services.RegistrationServicesImpl;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationServicesImplTest {
+
+    @InjectMocks
+    private RegistrationServicesImpl registrationServices;
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private ISkierRepository skierRepository;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @Spy
+    private CourseCapacityLedger capacityLedger = new CourseCapacityLedger(null);
+
+    @Spy
+    private RegistrationMetrics registrationMetrics = new RegistrationMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private InstructorScheduleIndex scheduleIndex;
+
+    @Mock
+    private RegistrationJournal registrationJournal;
+
+    @Mock
+    private CachedCourses cachedCourses;
+
+    @Test
+    void addRegistrationsInBatch_reportsEachEntry() {
+        // Arrange
+        Skier adult = new Skier(1L, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0);
+        Skier child = new Skier(2L, "Cora", "Child", LocalDate.now().minusYears(10), "Tunis", null, null, null, 0);
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        when(skierRepository.findAllWithSubscriptionByNumSkierIn(anyCollection())).thenReturn(Arrays.asList(adult, child));
+        when(courseRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(adults));
+        when(registrationRepository.findSkierCourseWeeks(anyCollection(), anyCollection())).thenReturn(Collections.emptyList());
+
+        // Act
+        List<RegistrationResult> results = registrationServices.addRegistrationsInBatch(Arrays.asList(
+                new RegistrationRequest(1L, 10L, 5),
+                new RegistrationRequest(1L, 10L, 5),
+                new RegistrationRequest(2L, 10L, 5),
+                new RegistrationRequest(3L, 10L, 5),
+                new RegistrationRequest(1L, 11L, 5),
+                new RegistrationRequest(1L, 10L, 60)));
+
+        // Assert
+        assertEquals(RegistrationStatus.ACCEPTED, results.get(0).getStatus());
+        assertEquals(RegistrationStatus.DUPLICATE, results.get(1).getStatus());
+        assertEquals(RegistrationStatus.AGE_REJECTED, results.get(2).getStatus());
+        assertEquals(RegistrationStatus.UNKNOWN_SKIER, results.get(3).getStatus());
+        assertEquals(RegistrationStatus.UNKNOWN_COURSE, results.get(4).getStatus());
+        assertEquals(RegistrationStatus.INVALID_WEEK, results.get(5).getStatus());
+        assertEquals(1, capacityLedger.seatsTaken(10L, 5));
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.ACCEPTED));
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.DUPLICATE));
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.AGE_REJECTED));
+        verify(registrationRepository, times(1)).saveAll(argThat(regs -> regs.iterator().hasNext()));
+    }
+
+    @Test
+    void addRegistrationsInBatch_rejectsWhenCourseIsFull() {
+        // Arrange
+        Skier adult = new Skier(1L, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0);
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        for (int i = 0; i < RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY; i++) {
+            capacityLedger.record(10L, 5);
+        }
+        when(skierRepository.findAllWithSubscriptionByNumSkierIn(anyCollection())).thenReturn(Collections.singletonList(adult));
+        when(courseRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(adults));
+        when(registrationRepository.findSkierCourseWeeks(anyCollection(), anyCollection())).thenReturn(Collections.emptyList());
+
+        // Act
+        List<RegistrationResult> results = registrationServices.addRegistrationsInBatch(
+                Collections.singletonList(new RegistrationRequest(1L, 10L, 5)));
+
+        // Assert
+        assertEquals(RegistrationStatus.FULL, results.get(0).getStatus());
+        assertFalse(results.get(0).isAccepted());
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.FULL));
+    }
+
+    @Test
+    void journalRegistration_holdsASeatOfTheCachedCourse() {
+        // Arrange: the last seat of the course
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        for (int seat = 1; seat < RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY; seat++) {
+            capacityLedger.record(10L, 5);
+        }
+        when(cachedCourses.find(10L)).thenReturn(Optional.of(adults));
+        when(registrationJournal.isEnabled()).thenReturn(true);
+        when(registrationJournal.append(anyLong(), eq(10L), eq(5))).thenReturn(true);
+
+        // Act
+        RegistrationResult journaled = registrationServices.journalRegistration(new Registration(null, 5, null, null), 1L, 10L);
+        RegistrationResult full = registrationServices.journalRegistration(new Registration(null, 5, null, null), 2L, 10L);
+
+        // Assert
+        assertEquals(RegistrationStatus.JOURNALED, journaled.getStatus());
+        assertEquals(RegistrationStatus.FULL, full.getStatus());
+        assertEquals(RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY, capacityLedger.seatsTaken(10L, 5));
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.JOURNALED));
+        verify(registrationJournal).append(1L, 10L, 5);
+        verify(registrationJournal, never()).append(2L, 10L, 5);
+    }
+
+    @Test
+    void journalRegistration_withAFullJournal_handsTheSeatBack() {
+        // Arrange
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        when(cachedCourses.find(10L)).thenReturn(Optional.of(adults));
+        when(registrationJournal.isEnabled()).thenReturn(true);
+
+        // Act
+        RegistrationResult result = registrationServices.journalRegistration(new Registration(null, 5, null, null), 1L, 10L);
+
+        // Assert
+        assertNull(result);
+        assertEquals(0, capacityLedger.seatsTaken(10L, 5));
+    }
+
+    @Test
+    void replayRegistration_writesAgainstTheHeldSeatWithoutAdmission() {
+        // Arrange: a child journaled into a full adult course, its seat held
+        Skier child = new Skier(2L, "Cora", "Child", LocalDate.now().minusYears(10), "Tunis", null, null, null, 0);
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        for (int seat = 0; seat < RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY; seat++) {
+            capacityLedger.record(10L, 5);
+        }
+        when(skierRepository.findById(2L)).thenReturn(Optional.of(child));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(adults));
+        when(registrationRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Registration replayed = registrationServices.replayRegistration(2L, 10L, 5);
+
+        // Assert
+        assertNotNull(replayed);
+        assertEquals(RegistrationServicesImpl.COLLECTIVE_COURSE_CAPACITY, capacityLedger.seatsTaken(10L, 5));
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.ACCEPTED));
+    }
+
+    @Test
+    void replayRegistration_whileTheDatabaseIsStillUnreachable_keepsTheSeat() {
+        // Arrange
+        capacityLedger.record(10L, 5);
+        when(skierRepository.findById(1L)).thenThrow(new CannotCreateTransactionException("failover",
+                new SQLNonTransientConnectionException("Communications link failure", "08S01")));
+
+        // Act & Assert
+        assertThrows(CannotCreateTransactionException.class, () -> registrationServices.replayRegistration(1L, 10L, 5));
+        assertEquals(1, capacityLedger.seatsTaken(10L, 5));
+    }
+
+    @Test
+    void isDatabaseUnavailable_onlyForConnectionFailures() {
+        // Arrange: a permit or pool timeout while the database is busy, and one caused by a lost connection
+        RuntimeException saturated = new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("No JDBC permit within 2000 ms"));
+        RuntimeException unreachable = new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("ski - Connection is not available", "08S01",
+                        new SQLException("Communications link failure", "08S01")));
+
+        // Act & Assert
+        assertFalse(RegistrationServicesImpl.isDatabaseUnavailable(saturated));
+        assertTrue(RegistrationServicesImpl.isWorthRetrying(saturated));
+        assertTrue(RegistrationServicesImpl.isDatabaseUnavailable(unreachable));
+    }
+
+    @Test
+    void addRegistration_onTheUniqueSkierCourseWeekConstraint_isDuplicate() {
+        // Arrange
+        Skier adult = new Skier(1L, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0);
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(adult));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(adults));
+        when(registrationRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate", null, "UQ_REGISTRATION_SKIER_COURSE_WEEK_INDEX_A")));
+
+        // Act
+        Registration result = registrationServices.addRegistrationAndAssignToSkierAndCourse(new Registration(null, 5, null, null), 1L, 10L);
+
+        // Assert
+        assertNull(result);
+        assertEquals(1, registrationMetrics.recorded(RegistrationStatus.DUPLICATE));
+        assertEquals(0, capacityLedger.seatsTaken(10L, 5));
+    }
+
+    @Test
+    void addRegistration_onAnyOtherIntegrityViolation_fails() {
+        // Arrange
+        Skier adult = new Skier(1L, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0);
+        Course adults = new Course(10L, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(adult));
+        when(courseRepository.findById(10L)).thenReturn(Optional.of(adults));
+        when(registrationRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("fk", null, "FK_REGISTRATION_COURSE")));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class,
+                () -> registrationServices.addRegistrationAndAssignToSkierAndCourse(new Registration(null, 5, null, null), 1L, 10L));
+        assertEquals(0, registrationMetrics.recorded(RegistrationStatus.DUPLICATE));
+        assertEquals(0, capacityLedger.seatsTaken(10L, 5));
+    }
+}
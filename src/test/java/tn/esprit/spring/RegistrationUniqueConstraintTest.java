@@ -0,0 +1,52 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.ISkierRepository;
+import tn.esprit.spring.services.CourseCapacityLedger;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RegistrationUniqueConstraintTest {
+
+    @Autowired
+    private IRegistrationServices registrationServices;
+
+    @Autowired
+    private ISkierRepository skierRepository;
+
+    @Autowired
+    private ICourseRepository courseRepository;
+
+    @Autowired
+    private CourseCapacityLedger capacityLedger;
+
+    @Test
+    void secondRegistrationToSameCourseAndWeek_isRefusedByTheIndex() {
+        // Arrange
+        Skier skier = skierRepository.save(new Skier(null, "Adam", "Adult", LocalDate.now().minusYears(30), "Tunis", null, null, null, 0));
+        Course course = courseRepository.save(new Course(null, 1, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 50f, 2, null, 0));
+
+        // Act
+        Registration first = registrationServices.addRegistrationAndAssignToSkierAndCourse(
+                new Registration(null, 4, null, null), skier.getNumSkier(), course.getNumCourse());
+        Registration second = registrationServices.addRegistrationAndAssignToSkierAndCourse(
+                new Registration(null, 4, null, null), skier.getNumSkier(), course.getNumCourse());
+
+        // Assert
+        assertNotNull(first.getNumRegistration());
+        assertNull(second);
+        assertEquals(1, capacityLedger.seatsTaken(course.getNumCourse(), 4));
+    }
+}
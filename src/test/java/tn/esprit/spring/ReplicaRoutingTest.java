@@ -0,0 +1,167 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.configs.ReplicaPools;
+import tn.esprit.spring.configs.ReplicaRoutingDataSource;
+import tn.esprit.spring.filters.ReadYourWritesFilter;
+import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.ISubscriptionServices;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/* Two embedded databases: the one of spring.datasource.url as primary and REPLICA_URL as its replica */
+@SpringBootTest(properties = {
+        "ski.datasource.replicas=" + ReplicaRoutingTest.REPLICA_URL,
+        "ski.datasource.replica.max-lag=5s",
+        "ski.datasource.replica.check-interval=1h",
+        "ski.datasource.read-your-writes=30s"})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:stationSki-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final long SKIER = 900_001L;
+    private static final long SUBSCRIPTION = 900_001L;
+    private static final long PISTE = 900_001L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ISkierServices skierServices;
+
+    @Autowired
+    private ISubscriptionServices subscriptionServices;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaPools replicaPools;
+
+    private JdbcTemplate replica;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        DataSource replicaDatabase = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(replicaDatabase).load().migrate();
+        replica = new JdbcTemplate(replicaDatabase);
+        routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        // Without a transaction the statements go to the primary, and do not count as a write of this thread
+        jdbcTemplate.update("insert into subscription (num_sub, start_date, end_date, price, type_sub, version) "
+                + "values (?, '2025-01-01', '2025-12-31', 500, 1, 0)", SUBSCRIPTION);
+        jdbcTemplate.update("insert into skier (num_skier, first_name, last_name, city, version) "
+                + "values (?, 'Primary', 'Routed', 'Tunis', 0)", SKIER);
+        replica.update("insert into skier (num_skier, first_name, last_name, city, version) "
+                + "values (?, 'Replica', 'Routed', 'Tunis', 0)", SKIER);
+    }
+
+    @Test
+    void readOnlyTransactions_goToAReplicaInSync() {
+        // Arrange
+        replicaBehindBy(0);
+
+        // Act & Assert
+        assertEquals("Replica", skierServices.retrieveSkier(SKIER).getFirstName());
+        assertTrue(routing.lagMillis(0) < 5_000);
+    }
+
+    @Test
+    void laggingReplica_fallsBackToThePrimary() {
+        // Arrange
+        replicaBehindBy(60_000);
+
+        // Act & Assert
+        assertEquals("Primary", skierServices.retrieveSkier(SKIER).getFirstName());
+        assertTrue(routing.lagMillis(0) >= 60_000);
+    }
+
+    @Test
+    void clientThatWrote_readsFromThePrimary() throws Exception {
+        // Arrange
+        replicaBehindBy(0);
+
+        // Act
+        Cookie primaryUntil = mockMvc.perform(put("/skier/assignToSub/" + SKIER + "/" + SUBSCRIPTION))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        // Assert
+        assertNotNull(primaryUntil);
+        mockMvc.perform(get("/skier/get/" + SKIER).cookie(primaryUntil))
+                .andExpect(jsonPath("$.firstName").value("Primary"));
+        mockMvc.perform(get("/skier/get/" + SKIER))
+                .andExpect(jsonPath("$.firstName").value("Replica"));
+    }
+
+    @Test
+    void excursionWrittenWithJdbc_keepsTheClientOnThePrimary() throws Exception {
+        // Arrange
+        replicaBehindBy(0);
+        jdbcTemplate.update("insert into piste (num_piste, name_piste, color, length, slope) values (?, 'Routed', 'GREEN', 1000, 20)", PISTE);
+
+        // Act
+        Cookie primaryUntil = mockMvc.perform(put("/skier/assignToPiste/" + SKIER + "/" + PISTE))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        // Assert
+        assertNotNull(primaryUntil);
+        mockMvc.perform(get("/skier/pistes/" + SKIER).cookie(primaryUntil))
+                .andExpect(jsonPath("$[0]").value(PISTE));
+    }
+
+    @Test
+    void versionedReads_stayOnThePrimary() {
+        // Arrange: the subscription only exists on the primary, whose table_version builds the ETag
+        replicaBehindBy(0);
+
+        // Act & Assert
+        assertNotNull(subscriptionServices.retrieveSubscriptionById(SUBSCRIPTION));
+        assertEquals("Replica", skierServices.retrieveSkier(SKIER).getFirstName());
+    }
+
+    private void replicaBehindBy(long lagMillis) {
+        replica.update("update replication_heartbeat set beat_millis = ? where id = 1", System.currentTimeMillis() - lagMillis);
+        routing.checkLag();
+    }
+
+    @Test
+    void everyPool_publishesItsMetrics() {
+        // Arrange
+        replicaBehindBy(0);
+
+        // Act
+        skierServices.retrieveSkier(SKIER);
+
+        // Assert
+        for (String pool : new String[]{"ski-primary", "ski-replica-0"}) {
+            assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", pool).gauge(), pool);
+        }
+        assertFalse(replicaPools.replicas().get(0).isClosed());
+    }
+}
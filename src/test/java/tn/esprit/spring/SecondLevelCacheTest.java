@@ -0,0 +1,104 @@
+package tn.esprit.spring;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tn.esprit.spring.configs.SecondLevelCacheEndpoint;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.services.CachedCourses;
+import tn.esprit.spring.services.ICourseServices;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private ICourseServices courseServices;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SecondLevelCacheEndpoint cacheEndpoint;
+
+    @Autowired
+    private CachedCourses cachedCourses;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void retrieveCourse_isServedFromCacheUntilUpdated() {
+        // Arrange
+        Course course = courseServices.addCourse(new Course(null, 2, TypeCourse.COLLECTIVE_ADULT, Support.SKI, 80f, 3, null, 0));
+        // identity inserts are not cached by Hibernate: the first read fills the region
+        courseServices.retrieveCourse(course.getNumCourse());
+        statistics.clear();
+
+        // Act
+        courseServices.retrieveCourse(course.getNumCourse());
+        courseServices.retrieveCourse(course.getNumCourse());
+
+        // Assert
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+
+        course.setPrice(95f);
+        courseServices.updateCourse(course);
+        assertEquals(95f, courseServices.retrieveCourse(course.getNumCourse()).getPrice());
+    }
+
+    @Test
+    void cachedCourse_isReadWithoutAConnection() {
+        // Arrange
+        Course course = courseServices.addCourse(new Course(null, 3, TypeCourse.COLLECTIVE_CHILDREN, Support.SKI, 70f, 2, null, 0));
+        courseServices.retrieveCourse(course.getNumCourse());
+        statistics.clear();
+
+        // Act
+        Course cached = cachedCourses.find(course.getNumCourse()).orElseThrow();
+
+        // Assert
+        assertEquals(TypeCourse.COLLECTIVE_CHILDREN, cached.getTypeCourse());
+        assertEquals(0, statistics.getConnectCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void courseListing_usesQueryCache() {
+        // Arrange
+        courseServices.addCourse(new Course(null, 1, TypeCourse.INDIVIDUAL, Support.SNOWBOARD, 120f, 1, null, 0));
+        courseServices.retrieveAllCourses(0L, 10);
+        statistics.clear();
+
+        // Act
+        courseServices.retrieveAllCourses(0L, 10);
+
+        // Assert
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void endpoint_reportsCourseRegion() {
+        courseServices.addCourse(new Course(null, 1, TypeCourse.INDIVIDUAL, Support.SKI, 60f, 1, null, 0));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> regions = (Map<String, Object>) cacheEndpoint.regions().get("regions");
+
+        assertTrue(regions.containsKey("course"));
+    }
+}
@@ -0,0 +1,106 @@
+package tn.esprit.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.esprit.spring.dto.SkierImportReport;
+import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.SkierCsvImporter;
+import tn.esprit.spring.services.SkierImportException;
+
+import java.io.StringReader;
+import java.sql.Date;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "ski.import.chunk-size=2")
+@AutoConfigureMockMvc
+class SkierImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ISkierServices skierServices;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importSkiers_commitsInChunksWithComputedEndDates() throws Exception {
+        // Arrange
+        String csv = csv("Chunked", 5, -1);
+
+        // Act
+        SkierImportReport report = skierServices.importSkiers(new StringReader(csv), "chunked");
+
+        // Assert
+        assertEquals(5, report.getImported());
+        assertEquals(3, report.getChunks());
+        assertEquals(5, skiers("Chunked"));
+        assertEquals(Date.valueOf(LocalDate.of(2025, 6, 1)), jdbcTemplate.queryForObject(
+                "select su.end_date from skier s join subscription su on su.num_sub = s.subscription_num_sub "
+                        + "where s.last_name = 'Chunked' and s.first_name = 'Skier1'", Date.class));
+    }
+
+    @Test
+    void failedImport_resumesAfterTheLastCommittedChunk() throws Exception {
+        // Arrange: the fifth row is broken, the first two chunks get committed
+        String broken = csv("Resumed", 6, 5);
+        SkierImportException failed = assertThrows(SkierImportException.class,
+                () -> skierServices.importSkiers(new StringReader(broken), "resumed"));
+        assertEquals("resumed", failed.getImportId());
+        assertEquals(4, skiers("Resumed"));
+
+        // Act
+        SkierImportReport report = skierServices.importSkiers(new StringReader(csv("Resumed", 6, -1)), "resumed");
+
+        // Assert
+        assertEquals(4, report.getResumedAfter());
+        assertEquals(2, report.getImported());
+        assertEquals(6, skiers("Resumed"));
+    }
+
+    @Test
+    void importEndpoint_readsTheRequestBody() throws Exception {
+        mockMvc.perform(post("/skier/import").param("importId", "http")
+                        .contentType("text/csv").content(csv("Posted", 3, -1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+        mockMvc.perform(post("/skier/import").param("importId", "bad-header")
+                        .contentType("text/csv").content("not,a,header\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("import bad-header: line 1")));
+        mockMvc.perform(post("/skier/import").contentType("text/csv").content(csv("Unnamed", 1, -1)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(3, skiers("Posted"));
+    }
+
+    /* rows skiers named Skier1..SkierN, the row at brokenRow (1-based, -1 for none) has no valid date */
+    private static String csv(String lastName, int rows, int brokenRow) {
+        StringBuilder csv = new StringBuilder(SkierCsvImporter.HEADER).append('\n');
+        String[] types = {"MONTHLY", "ANNUAL", "SEMESTRIEL"};
+        for (int i = 1; i <= rows; i++) {
+            csv.append("Skier").append(i).append(',').append(lastName).append(',')
+                    .append(i == brokenRow ? "not-a-date" : "1990-01-0" + (i % 9 + 1)).append(',')
+                    .append("\"Tunis, Tunisia\"").append(',')
+                    .append(types[(i - 1) % types.length]).append(",2025-05-01,")
+                    .append(100 + i).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private int skiers(String lastName) {
+        return jdbcTemplate.queryForObject("select count(*) from skier where last_name = ?", Integer.class, lastName);
+    }
+}
@@ -0,0 +1,91 @@
+package tn.esprit.spring;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tn.esprit.spring.filters.RequestSqlTurboFilter;
+import tn.esprit.spring.filters.SqlLoggingFilter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlLoggingFilterTest {
+
+    private Logger sqlLogger;
+    private final List<Boolean> sqlEnabled = new ArrayList<>();
+
+    /* Stands for the controller: records whether a statement would be logged while the request runs */
+    private final HttpServlet controller = new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            sqlEnabled.add(sqlLogger.isDebugEnabled());
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = new LoggerContext();
+        context.addTurboFilter(new RequestSqlTurboFilter());
+        sqlLogger = context.getLogger(RequestSqlTurboFilter.SQL_LOGGER);
+        sqlLogger.setLevel(Level.INFO);
+    }
+
+    @Test
+    void flaggedRequest_logsItsSqlOnly() throws Exception {
+        // Arrange
+        SqlLoggingFilter filter = new SqlLoggingFilter("s3cret");
+        MockHttpServletRequest flagged = new MockHttpServletRequest("GET", "/skier/all");
+        flagged.addHeader(SqlLoggingFilter.HEADER, "s3cret");
+
+        // Act
+        filter.doFilter(flagged, new MockHttpServletResponse(), new MockFilterChain(controller));
+        filter.doFilter(new MockHttpServletRequest("GET", "/skier/all"), new MockHttpServletResponse(), new MockFilterChain(controller));
+
+        // Assert
+        assertTrue(sqlEnabled.get(0));
+        assertFalse(sqlEnabled.get(1));
+        assertFalse(sqlLogger.isDebugEnabled());
+    }
+
+    @Test
+    void requestWithoutTheToken_isNotFlagged() throws Exception {
+        // Arrange
+        MockHttpServletRequest guessed = new MockHttpServletRequest("GET", "/skier/all");
+        guessed.addHeader(SqlLoggingFilter.HEADER, "true");
+        MockHttpServletRequest noTokenConfigured = new MockHttpServletRequest("GET", "/skier/all");
+        noTokenConfigured.addHeader(SqlLoggingFilter.HEADER, "");
+
+        // Act
+        new SqlLoggingFilter("s3cret").doFilter(guessed, new MockHttpServletResponse(), new MockFilterChain(controller));
+        new SqlLoggingFilter("").doFilter(noTokenConfigured, new MockHttpServletResponse(), new MockFilterChain(controller));
+
+        // Assert
+        assertFalse(sqlEnabled.get(0));
+        assertFalse(sqlEnabled.get(1));
+    }
+
+    @Test
+    void turboFilter_leavesOtherLoggersAlone() {
+        LoggerContext context = sqlLogger.getLoggerContext();
+        Logger other = context.getLogger("tn.esprit.spring.services");
+        other.setLevel(Level.INFO);
+
+        org.slf4j.MDC.put(RequestSqlTurboFilter.MDC_KEY, "GET /skier/all");
+        try {
+            assertTrue(sqlLogger.isDebugEnabled());
+            assertFalse(other.isDebugEnabled());
+        } finally {
+            org.slf4j.MDC.remove(RequestSqlTurboFilter.MDC_KEY);
+        }
+    }
+}
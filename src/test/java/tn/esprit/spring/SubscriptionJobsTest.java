@@ -0,0 +1,64 @@
+package tn.esprit.spring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.services.ISubscriptionServices;
+import tn.esprit.spring.services.SubscriptionJobs;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionJobsTest {
+
+    @Mock
+    private ISubscriptionServices subscriptionServices;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SubscriptionJobs jobs;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobs = new SubscriptionJobs(subscriptionServices, meterRegistry);
+    }
+
+    @Test
+    void overlappingRun_isSkippedAndCounted() {
+        // Arrange
+        AtomicBoolean overlapRan = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            overlapRan.set(jobs.run(SubscriptionJobs.EXPIRED_SUBSCRIPTIONS, subscriptionServices::retrieveSubscriptions));
+            return null;
+        }).when(subscriptionServices).retrieveSubscriptions();
+
+        // Act
+        jobs.reportExpiredSubscriptions();
+
+        // Assert
+        assertFalse(overlapRan.get());
+        verify(subscriptionServices, times(1)).retrieveSubscriptions();
+        assertEquals(1, meterRegistry.get("ski.jobs.skipped").tag("job", SubscriptionJobs.EXPIRED_SUBSCRIPTIONS).counter().count());
+        assertEquals(1, meterRegistry.get("ski.jobs").tag("job", SubscriptionJobs.EXPIRED_SUBSCRIPTIONS).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void failingRun_isTimedAndReleasesTheJob() {
+        // Arrange
+        doThrow(new IllegalStateException("database down")).when(subscriptionServices).showMonthlyRecurringRevenue();
+
+        // Act
+        jobs.reportMonthlyRecurringRevenue();
+        boolean ranAgain = jobs.run(SubscriptionJobs.MONTHLY_REVENUE, subscriptionServices::showMonthlyRecurringRevenue);
+
+        // Assert
+        assertTrue(ranAgain);
+        assertEquals(2, meterRegistry.get("ski.jobs").tag("job", SubscriptionJobs.MONTHLY_REVENUE).tag("outcome", "failure").timer().count());
+    }
+}
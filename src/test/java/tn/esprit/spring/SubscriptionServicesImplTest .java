@@ -6,18 +6,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprit.spring.dto.ExpiredSubscriptionView;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
+import tn.esprit.spring.repositories.ExpiredSubscriptionRepository;
+import tn.esprit.spring.services.RecurringRevenueAggregator;
 import tn.esprit.spring.services.SubscriptionServicesImpl;
+import tn.esprit.spring.services.TableVersions;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +35,15 @@ class SubscriptionServicesImplTest {
     @Mock
     private ISubscriptionRepository subscriptionRepository; // Mocked repository
 
+    @Mock
+    private RecurringRevenueAggregator revenueAggregator;
+
+    @Mock
+    private TableVersions tableVersions;
+
+    @Mock
+    private ExpiredSubscriptionRepository expiredSubscriptionRepository;
+
     @BeforeEach
     void setUp() {
         // No manual mock initialization required; handled by @ExtendWith(MockitoExtension.class)
@@ -37,23 +52,27 @@ class SubscriptionServicesImplTest {
     @Test
     void retrieveSubscriptions() {
         // Arrange: Mock repository data
-        List<Subscription> subscriptions = Arrays.asList(
-                new Subscription(1L, LocalDate.now(), LocalDate.now().plusMonths(1), 100f, TypeSubscription.MONTHLY),
-                new Subscription(2L, LocalDate.now(), LocalDate.now().plusYears(1), 1200f, TypeSubscription.ANNUAL)
+        LocalDate lastExpiry = LocalDate.now().minusDays(1);
+        List<ExpiredSubscriptionView> expired = Arrays.asList(
+                new ExpiredSubscriptionView(1L, LocalDate.now().minusMonths(1), "Ali", "Ben Ali"),
+                new ExpiredSubscriptionView(2L, lastExpiry, "Sara", "Trabelsi")
         );
-        when(subscriptionRepository.findAll()).thenReturn(subscriptions);
+        when(expiredSubscriptionRepository.findUnreported(any(), anyLong(), any(), anyInt())).thenReturn(expired, Collections.emptyList());
 
         // Act: Call the service method (doesn't return data)
         subscriptionServices.retrieveSubscriptions();
+        subscriptionServices.retrieveSubscriptions();
 
         // Assert: Verify repository interaction
-        verify(subscriptionRepository, times(1)).findAll();
+        verify(expiredSubscriptionRepository, times(1)).markReported(expired);
+        verify(expiredSubscriptionRepository, times(2)).findUnreported(eq(LocalDate.of(1970, 1, 1)), eq(0L), any(), anyInt());
+        verify(subscriptionRepository, never()).findAll();
     }
 
     @Test
     void addSubscription() {
         // Arrange
-        Subscription subscription = new Subscription(1L, LocalDate.now(), LocalDate.now().plusMonths(6), 600f, TypeSubscription.SEMESTRIEL);
+        Subscription subscription = new Subscription(1L, LocalDate.now(), LocalDate.now().plusMonths(6), 600f, TypeSubscription.SEMESTRIEL, 0);
         when(subscriptionRepository.save(subscription)).thenReturn(subscription);
 
         // Act
@@ -69,7 +88,7 @@ class SubscriptionServicesImplTest {
     void retrieveSubscriptionById_existingSubscription() {
         // Arrange
         Long subId = 1L;
-        Subscription subscription = new Subscription(subId, LocalDate.now(), LocalDate.now().plusMonths(6), 600f, TypeSubscription.SEMESTRIEL);
+        Subscription subscription = new Subscription(subId, LocalDate.now(), LocalDate.now().plusMonths(6), 600f, TypeSubscription.SEMESTRIEL, 0);
         when(subscriptionRepository.findById(subId)).thenReturn(Optional.of(subscription));
 
         // Act
@@ -100,8 +119,8 @@ class SubscriptionServicesImplTest {
         // Arrange
         TypeSubscription type = TypeSubscription.MONTHLY;
         Set<Subscription> subscriptions = Set.of(
-                new Subscription(1L, LocalDate.now(), LocalDate.now().plusMonths(1), 100f, TypeSubscription.MONTHLY),
-                new Subscription(2L, LocalDate.now(), LocalDate.now().plusMonths(1), 120f, TypeSubscription.MONTHLY)
+                new Subscription(1L, LocalDate.now(), LocalDate.now().plusMonths(1), 100f, TypeSubscription.MONTHLY, 0),
+                new Subscription(2L, LocalDate.now(), LocalDate.now().plusMonths(1), 120f, TypeSubscription.MONTHLY, 0)
         );
         when(subscriptionRepository.findByTypeSubOrderByStartDateAsc(type)).thenReturn(subscriptions);
 
@@ -120,7 +139,7 @@ class SubscriptionServicesImplTest {
         LocalDate startDate = LocalDate.now();
         LocalDate endDate = LocalDate.now().plusMonths(1);
         List<Subscription> subscriptions = List.of(
-                new Subscription(1L, startDate, endDate, 200f, TypeSubscription.MONTHLY)
+                new Subscription(1L, startDate, endDate, 200f, TypeSubscription.MONTHLY, 0)
         );
         when(subscriptionRepository.getSubscriptionsByStartDateBetween(startDate, endDate)).thenReturn(subscriptions);
 